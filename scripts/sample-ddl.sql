@@ -1,13 +1,21 @@
 -- Typical table definitions for the YDB Key Prefix Demo tool
+--
+-- The table_keys, uuid_index_keys and time_index_keys placeholders are replaced
+-- by INIT with PARTITION_AT_KEYS settings when ddl.presplit / ddl.presplit.index
+-- are configured, and with empty text otherwise. YDB accepts PARTITION_AT_KEYS
+-- only on creation, so the index placeholders belong to the index declarations
+-- within CREATE TABLE, and ALTER INDEX sets the auto partitioning only.
+-- The table_dir placeholder is replaced with the directory of each table pair,
+-- see tables.template and tables.count.
 
-CREATE TABLE `key_prefix_demo/main` (
+CREATE TABLE `${table_dir}/main` (
   id Uuid NOT NULL,
   collection_id Uuid,
   tv Timestamp,
   ballast1 Text FAMILY family_large,
   PRIMARY KEY (id),
-  INDEX ix_tv GLOBAL SYNC ON (tv),
-  INDEX ix_coll GLOBAL SYNC ON (collection_id),
+  INDEX ix_tv GLOBAL SYNC ON (tv)${time_index_keys},
+  INDEX ix_coll GLOBAL SYNC ON (collection_id)${uuid_index_keys},
   FAMILY family_large (
     COMPRESSION = "lz4"
   )
@@ -16,17 +24,17 @@ CREATE TABLE `key_prefix_demo/main` (
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 1000,
   AUTO_PARTITIONING_MIN_PARTITIONS_COUNT = 5000,
-  AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 5500
+  AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 5500${table_keys}
 );
 
-CREATE TABLE `key_prefix_demo/sub` (
+CREATE TABLE `${table_dir}/sub` (
   id Uuid NOT NULL,
   ref_id Uuid,
   tv Timestamp,
   ballast2 Text FAMILY family_large,
   PRIMARY KEY (id),
-  INDEX ix_tv GLOBAL SYNC ON (tv),
-  INDEX ix_ref GLOBAL SYNC ON (ref_id),
+  INDEX ix_tv GLOBAL SYNC ON (tv)${time_index_keys},
+  INDEX ix_ref GLOBAL SYNC ON (ref_id)${uuid_index_keys},
   FAMILY family_large (
     COMPRESSION = "lz4"
   )
@@ -35,10 +43,10 @@ CREATE TABLE `key_prefix_demo/sub` (
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 1000,
   AUTO_PARTITIONING_MIN_PARTITIONS_COUNT = 5000,
-  AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 5500
+  AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 5500${table_keys}
 );
 
-ALTER TABLE `key_prefix_demo/main` ALTER INDEX ix_coll SET (
+ALTER TABLE `${table_dir}/main` ALTER INDEX ix_coll SET (
   AUTO_PARTITIONING_BY_SIZE = ENABLED,
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 500,
@@ -46,7 +54,7 @@ ALTER TABLE `key_prefix_demo/main` ALTER INDEX ix_coll SET (
   AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 1100
 );
 
-ALTER TABLE `key_prefix_demo/main` ALTER INDEX ix_tv SET (
+ALTER TABLE `${table_dir}/main` ALTER INDEX ix_tv SET (
   AUTO_PARTITIONING_BY_SIZE = ENABLED,
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 500,
@@ -54,7 +62,7 @@ ALTER TABLE `key_prefix_demo/main` ALTER INDEX ix_tv SET (
   AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 1100
 );
 
-ALTER TABLE `key_prefix_demo/sub` ALTER INDEX ix_ref SET (
+ALTER TABLE `${table_dir}/sub` ALTER INDEX ix_ref SET (
   AUTO_PARTITIONING_BY_SIZE = ENABLED,
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 500,
@@ -62,7 +70,7 @@ ALTER TABLE `key_prefix_demo/sub` ALTER INDEX ix_ref SET (
   AUTO_PARTITIONING_MAX_PARTITIONS_COUNT = 1100
 );
 
-ALTER TABLE `key_prefix_demo/sub` ALTER INDEX ix_tv SET (
+ALTER TABLE `${table_dir}/sub` ALTER INDEX ix_tv SET (
   AUTO_PARTITIONING_BY_SIZE = ENABLED,
   AUTO_PARTITIONING_BY_LOAD = ENABLED,
   AUTO_PARTITIONING_PARTITION_SIZE_MB = 500,
@@ -4,4 +4,7 @@
 #   https://cloud.yandex.com/en/docs/iam/operations/authorized-key/create
 # export YDB_SERVICE_ACCOUNT_KEY_FILE_CREDENTIALS=$(pwd)/yc-fednew-iot1sa1.json
 
-java -Xms256m -Xmx8192m -classpath 'lib/*' tech.ydb.samples.keyprefix.Main $@
+# On Java 21+, enable the Vector API path of the bulk key generation:
+# export JAVA_OPTS="--add-modules jdk.incubator.vector"
+
+java $JAVA_OPTS -Xms256m -Xmx8192m -classpath 'lib/*' tech.ydb.samples.keyprefix.Main $@
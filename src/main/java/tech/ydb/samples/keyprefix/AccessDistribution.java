@@ -0,0 +1,195 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.SplittableRandom;
+
+/**
+ * Access distribution over the positions {@code [0, n)}, where the higher
+ * positions correspond to the more recent data.
+ *
+ * All the parameters are pre-computed at construction, so that sampling takes
+ * constant time and does not touch any shared mutable state. Supported
+ * definitions:
+ * <ul>
+ * <li>{@code UNIFORM}</li>
+ * <li>{@code ZIPF[:theta]} - Zipfian over the recency rank, theta in (0, 1),
+ * where the closed form of the sampler is valid, default 0.99;</li>
+ * <li>{@code LATEST[:mean]} - exponential decay from the most recent
+ * position, mean given as the fraction of n, default 0.05;</li>
+ * <li>{@code HOTSPOT[:size[:probability[:offset]]]} - the window of the
+ * specified size (fraction of n) starting at the specified offset (fraction
+ * of n) receives the specified share of accesses, default 0.1, 0.9 and
+ * 0.9.</li>
+ * </ul>
+ *
+ * @author zinal
+ */
+public abstract class AccessDistribution {
+
+    protected final long n;
+
+    protected AccessDistribution(long n) {
+        if (n < 1L) {
+            throw new IllegalArgumentException("Illegal distribution size: " + n);
+        }
+        this.n = n;
+    }
+
+    public long getSize() {
+        return n;
+    }
+
+    /**
+     * @param random Random stream to be used
+     * @return Position between 0 and n - 1, inclusive
+     */
+    public abstract long sample(SplittableRandom random);
+
+    /**
+     * Parses the distribution definition.
+     *
+     * @param spec Distribution definition
+     * @param n Number of positions
+     * @return The distribution sampler
+     */
+    public static AccessDistribution parse(String spec, long n) {
+        String[] parts = (spec == null) ? new String[]{"UNIFORM"} : spec.trim().split(":");
+        String kind = parts[0].trim().toUpperCase();
+        switch (kind) {
+            case "":
+            case "UNIFORM":
+                return new Uniform(n);
+            case "ZIPF":
+            case "ZIPFIAN":
+                return new Zipfian(n, param(parts, 1, 0.99));
+            case "LATEST":
+                return new Latest(n, param(parts, 1, 0.05));
+            case "HOTSPOT":
+                return new Hotspot(n, param(parts, 1, 0.1), param(parts, 2, 0.9),
+                        param(parts, 3, 0.9));
+            default:
+                throw new IllegalArgumentException("Unknown access distribution: " + spec);
+        }
+    }
+
+    private static double param(String[] parts, int index, double defval) {
+        if (parts.length <= index || parts[index].trim().length() == 0) {
+            return defval;
+        }
+        return Double.parseDouble(parts[index].trim());
+    }
+
+    static final class Uniform extends AccessDistribution {
+
+        Uniform(long n) {
+            super(n);
+        }
+
+        @Override
+        public long sample(SplittableRandom random) {
+            return random.nextLong(n);
+        }
+    }
+
+    /**
+     * Zipfian generator by Gray et al, "Quickly Generating Billion-Record
+     * Synthetic Databases", as used in YCSB.
+     */
+    static final class Zipfian extends AccessDistribution {
+
+        private final double zetan;
+        private final double alpha;
+        private final double eta;
+        private final double half;
+
+        Zipfian(long n, double theta) {
+            super(n);
+            if (!(theta > 0.0 && theta < 1.0)) {
+                throw new IllegalArgumentException("Illegal Zipfian theta: " + theta
+                        + ", expected a value in (0, 1)");
+            }
+            double zeta2 = 1.0 + Math.pow(0.5, theta);
+            double z = 0.0;
+            for (long i = 1; i <= n; ++i) {
+                z += 1.0 / Math.pow(i, theta);
+            }
+            this.zetan = z;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1.0 - Math.pow(2.0 / n, 1.0 - theta)) / (1.0 - zeta2 / zetan);
+            this.half = 1.0 + Math.pow(0.5, theta);
+        }
+
+        @Override
+        public long sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            long rank;
+            if (uz < 1.0) {
+                rank = 0L;
+            } else if (uz < half) {
+                rank = 1L;
+            } else {
+                rank = (long) (n * Math.pow(eta * u - eta + 1.0, alpha));
+            }
+            if (rank >= n || rank < 0L) {
+                rank = n - 1L;
+            }
+            return n - 1L - rank;
+        }
+    }
+
+    static final class Latest extends AccessDistribution {
+
+        private final double mean;
+
+        Latest(long n, double meanFraction) {
+            super(n);
+            if (meanFraction <= 0.0) {
+                throw new IllegalArgumentException("Illegal mean: " + meanFraction);
+            }
+            this.mean = Math.max(1e-9, meanFraction * n);
+        }
+
+        @Override
+        public long sample(SplittableRandom random) {
+            long rank = (long) (-Math.log(1.0 - random.nextDouble()) * mean);
+            if (rank >= n || rank < 0L) {
+                rank = Math.floorMod(rank, n);
+            }
+            return n - 1L - rank;
+        }
+    }
+
+    static final class Hotspot extends AccessDistribution {
+
+        private final long hotStart;
+        private final long hotSize;
+        private final double probability;
+
+        Hotspot(long n, double sizeFraction, double probability, double offsetFraction) {
+            super(n);
+            if (probability < 0.0 || probability > 1.0) {
+                throw new IllegalArgumentException("Illegal hotspot probability: " + probability);
+            }
+            long size = Math.max(1L, Math.min(n, (long) (n * sizeFraction)));
+            long start = (long) (n * offsetFraction);
+            if (start < 0L) {
+                start = 0L;
+            }
+            if (start + size > n) {
+                start = n - size;
+            }
+            this.hotStart = start;
+            this.hotSize = size;
+            this.probability = probability;
+        }
+
+        @Override
+        public long sample(SplittableRandom random) {
+            if (hotSize >= n || random.nextDouble() < probability) {
+                return hotStart + random.nextLong(hotSize);
+            }
+            long v = random.nextLong(n - hotSize);
+            return (v >= hotStart) ? v + hotSize : v;
+        }
+    }
+}
@@ -2,10 +2,17 @@ package tech.ydb.samples.keyprefix;
 
 import java.nio.ByteBuffer;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation helpers for key generators.
@@ -30,16 +37,94 @@ public class BaseKeyGen {
      */
     static final int TIMESTAMP_FIELD_LOW_BIT = 33;
 
+    /**
+     * Minimal number of MSB bits below the timestamp field, which are kept for
+     * the random data (and version bits for UUIDs).
+     */
+    static final int MIN_LOW_BITS = 16;
+
+    /**
+     * FNV-1a 64-bit parameters of the affinity key hash.
+     */
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
     /**
      * A position within an array of pre-computed bitmasks to be used.
      */
     protected final int maskPos;
 
+    /**
+     * Bit width of the embedded timestamp field.
+     */
+    protected final int timestampBits;
+
+    /**
+     * Granularity of the embedded timestamp field.
+     */
+    protected final TimestampUnit timestampUnit;
+
+    /**
+     * Placement of the fields and the choice of the shared prefixes.
+     */
+    protected final KeyLayout layout;
+
+    private final long timestampMask;
+    private final long prefixMask;
+    private final int timestampLowBit;
+    private final int prefixShift;
+    private final AtomicLong prefixCounter = new AtomicLong();
+    private long affinitySalt = 0L;
+    private int rotationPrefixes = 0;
+    private long rotationTicks = 1L;
+
     protected BaseKeyGen(int prefixBits) {
+        this(prefixBits, TIMESTAMP_BITS, TimestampUnit.SECONDS);
+    }
+
+    /**
+     * Configures the custom key layout.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param timestampBits Number of bits for the timestamp code
+     * @param timestampUnit Granularity of the timestamp code
+     */
+    protected BaseKeyGen(int prefixBits, int timestampBits, TimestampUnit timestampUnit) {
+        this(prefixBits, timestampBits, timestampUnit, KeyLayout.PREFIX);
+    }
+
+    /**
+     * Configures the custom key layout with the specified field placement.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param timestampBits Number of bits for the timestamp code
+     * @param timestampUnit Granularity of the timestamp code
+     * @param layout Placement of the fields
+     */
+    protected BaseKeyGen(int prefixBits, int timestampBits, TimestampUnit timestampUnit,
+            KeyLayout layout) {
         if (prefixBits < 1 || prefixBits > 18) {
             throw new IllegalArgumentException("Unsupported prefix length: " + prefixBits);
         }
+        if (timestampBits < 8 || prefixBits + timestampBits > 64 - MIN_LOW_BITS) {
+            throw new IllegalArgumentException("Unsupported timestamp length: "
+                    + timestampBits + " with prefix length " + prefixBits);
+        }
         this.maskPos = prefixBits - 1;
+        this.timestampBits = timestampBits;
+        this.timestampUnit = timestampUnit;
+        this.layout = layout;
+        if (layout.isTimeFirst()) {
+            this.timestampLowBit = 64 - timestampBits;
+            this.timestampMask = ((1L << timestampBits) - 1L) << timestampLowBit;
+            this.prefixMask = Holder.prefixMasks[maskPos] >>> timestampBits;
+            this.prefixShift = timestampBits;
+        } else {
+            this.timestampLowBit = layoutLowBit(prefixBits, timestampBits);
+            this.timestampMask = Holder.timestampMasks(timestampBits)[maskPos];
+            this.prefixMask = Holder.prefixMasks[maskPos];
+            this.prefixShift = 0;
+        }
     }
 
     /**
@@ -50,10 +135,95 @@ public class BaseKeyGen {
     }
 
     /**
-     * @return Prefix mask to be applied
+     * @return Low bit index (inclusive) of the timestamp field in the MSB.
+     */
+    protected final int getTimestampLowBit() {
+        return timestampLowBit;
+    }
+
+    /**
+     * @return Low bit index (inclusive) of the prefix and timestamp fields
+     * together, the MSB bits below are random (or the counter).
+     */
+    protected final int getLayoutLowBit() {
+        return layoutLowBit(maskPos + 1, timestampBits);
+    }
+
+    /**
+     * @param prefixBits Number of bits for the prefix
+     * @param timestampBits Number of bits for the timestamp code
+     * @return Low bit index (inclusive) of the prefix and timestamp fields,
+     * usable before the generator is constructed
+     */
+    protected static int layoutLowBit(int prefixBits, int timestampBits) {
+        return 64 - prefixBits - timestampBits;
+    }
+
+    /**
+     * @return Placement of the prefix and timestamp fields.
+     */
+    public KeyLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return Bit width of the embedded timestamp field.
+     */
+    public int getTimestampBits() {
+        return timestampBits;
+    }
+
+    /**
+     * @return Granularity of the embedded timestamp field.
+     */
+    public TimestampUnit getTimestampUnit() {
+        return timestampUnit;
+    }
+
+    /**
+     * @return Timestamp mask to be applied
+     */
+    public long getTimestampMask() {
+        return timestampMask;
+    }
+
+    /**
+     * @return Time period after which the timestamp codes are reused.
+     */
+    public Duration getWrapAroundPeriod() {
+        return Duration.ofMillis(timestampUnit.getMillis() << timestampBits);
+    }
+
+    /**
+     * @return Prefix mask to be applied, in the field position of the layout
      */
     public long getPrefixMask() {
-        return Holder.prefixMasks[maskPos];
+        return prefixMask;
+    }
+
+    /**
+     * @return Number of distinct prefix values, 2^prefixBits.
+     */
+    public int getPrefixCount() {
+        return 1 << getPrefixBits();
+    }
+
+    /**
+     * @return Number of key ranges covering all the keys of a time range: one
+     * per prefix, or the single range for the time-first layout.
+     */
+    public int getRangeCount() {
+        return layout.isTimeFirst() ? 1 : getPrefixCount();
+    }
+
+    /**
+     * Builds the prefix value for the specified prefix number.
+     *
+     * @param index Prefix number, 0 to {@link #getPrefixCount()} - 1
+     * @return Prefix value to be used with the generator methods
+     */
+    public long getPrefixValue(int index) {
+        return ((long) index) << (64 - getPrefixBits());
     }
 
     /**
@@ -62,32 +232,299 @@ public class BaseKeyGen {
      * @return Random value to be used as a prefix.
      */
     public long nextPrefix() {
-        final SecureRandom ng = Holder.numberGenerator;
-        byte[] data = new byte[8];
-        ng.nextBytes(data);
-        long lsb = 0;
-        for (int i = 0; i < 8; i++) {
-            lsb = (lsb << 8) | (data[i] & 0xff);
+        if (layout == KeyLayout.BIT_REVERSED) {
+            return nextCounterPrefix();
+        }
+        return KeyRandom.nextLong();
+    }
+
+    /**
+     * Generates the new shared prefix using the specified random stream.
+     *
+     * @param random Random stream to be used
+     * @return Random value to be used as a prefix.
+     */
+    public long nextPrefix(SplittableRandom random) {
+        long v = random.nextLong();
+        if (layout == KeyLayout.BIT_REVERSED) {
+            // the random value is still drawn, to keep the rest of the stream
+            return nextCounterPrefix();
+        }
+        return v;
+    }
+
+    /**
+     * @return The next prefix value of the bit-reversed counter
+     */
+    protected final long nextCounterPrefix() {
+        return Long.reverse(prefixCounter.getAndIncrement());
+    }
+
+    /**
+     * @return Salt of the affinity key hash, 0 by default
+     */
+    public long getAffinitySalt() {
+        return affinitySalt;
+    }
+
+    /**
+     * Sets the salt of the affinity key hash, so that the same keys map to
+     * different prefixes in different tables or deployments. To be set
+     * before the generator is used.
+     *
+     * @param affinitySalt Salt value
+     */
+    public void setAffinitySalt(long affinitySalt) {
+        this.affinitySalt = affinitySalt;
+    }
+
+    /**
+     * Derives the prefix value from the affinity key, for example the tenant
+     * number for the {@link KeyLayout#TENANT_HASH} layout. The same key always
+     * gives the same prefix, so the related keys generated in different
+     * transactions share the prefix.
+     *
+     * The value is {@code fmix64((affinityKey ^ salt) * 0x9E3779B97F4A7C15)},
+     * with the 64-bit finalizer of MurmurHash3, and the prefix field takes
+     * its top bits. The other overloads first reduce the key to 64 bits with
+     * FNV-1a, so the prefixes can be computed outside of this tool.
+     *
+     * @param affinityKey Affinity key
+     * @return Prefix value to be used with the generator methods
+     */
+    public long prefixOf(long affinityKey) {
+        return mix((affinityKey ^ affinitySalt) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @param affinityKey Affinity key, like the collection id, hashed by its
+     * 16 bytes in the canonical order of {@link UUID#toString()}
+     * @return Prefix value to be used with the generator methods
+     */
+    public long prefixOf(UUID affinityKey) {
+        long h = fnv1a(FNV_OFFSET, affinityKey.getMostSignificantBits());
+        return prefixOf(fnv1a(h, affinityKey.getLeastSignificantBits()));
+    }
+
+    /**
+     * @param affinityKey Affinity key, hashed by its characters
+     * @return Prefix value to be used with the generator methods
+     */
+    public long prefixOf(CharSequence affinityKey) {
+        // FNV-1a over the UTF-16 code units, finalized by prefixOf(long)
+        long h = FNV_OFFSET;
+        for (int i = 0; i < affinityKey.length(); ++i) {
+            h = (h ^ affinityKey.charAt(i)) * FNV_PRIME;
+        }
+        return prefixOf(h);
+    }
+
+    /**
+     * @param affinityKey Affinity key, hashed by its bytes
+     * @return Prefix value to be used with the generator methods
+     */
+    public long prefixOf(byte[] affinityKey) {
+        long h = FNV_OFFSET;
+        for (byte b : affinityKey) {
+            h = (h ^ (b & 0xFFL)) * FNV_PRIME;
+        }
+        return prefixOf(h);
+    }
+
+    /**
+     * Continues FNV-1a over the 8 bytes of the value, most significant first.
+     */
+    private static long fnv1a(long h, long v) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            h = (h ^ ((v >>> shift) & 0xFFL)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Puts the prefix value into the prefix field of the value, in the field
+     * position of the layout.
+     *
+     * @param msb The value, before byte reordering
+     * @param prefix Prefix value
+     * @return The value with the prefix field replaced
+     */
+    public long applyPrefix(long msb, long prefix) {
+        return (msb & ~prefixMask) | ((prefix >>> prefixShift) & prefixMask);
+    }
+
+    /**
+     * @return Number of the prefixes active within the rotation window, or 0
+     * if the rotation is disabled
+     */
+    public int getRotationPrefixes() {
+        return rotationPrefixes;
+    }
+
+    /**
+     * @return Length of the rotation window
+     */
+    public Duration getRotationWindow() {
+        return Duration.ofMillis(rotationTicks * timestampUnit.getMillis());
+    }
+
+    /**
+     * Enables the time-bucketed prefix rotation: within each window of the
+     * embedded timestamp, only the specified number of the adjacent prefixes
+     * is used, and the next window moves to the next group of prefixes. Over
+     * 2^prefixBits / prefixes windows, all the prefixes are used evenly. To
+     * be set before the generator is used.
+     *
+     * Only the prefixes chosen by the generator are rotated: the per-key
+     * random prefixes are moved into the group of the key's window, and the
+     * shared random prefixes are moved by the caller with
+     * {@link #activePrefix(long, Instant)}, once per batch. The explicit
+     * prefixes, like the ones from {@link #prefixOf(UUID)}, are embedded as
+     * given, so the rotation does not break the co-location of the related
+     * keys. The tenant-hash layout has no random shared prefixes, so it does
+     * not support the rotation.
+     *
+     * @param prefixes Number of the active prefixes, or 0 to disable
+     * @param window Length of the window, at least one timestamp unit
+     */
+    public void setRotation(int prefixes, Duration window) {
+        if (prefixes < 0 || prefixes > getPrefixCount()) {
+            throw new IllegalArgumentException("Illegal rotation prefix count: " + prefixes);
+        }
+        if (prefixes > 0 && layout == KeyLayout.TENANT_HASH) {
+            throw new IllegalArgumentException("Prefix rotation is not supported "
+                    + "for the " + layout + " layout");
+        }
+        long ticks = window.toMillis() / timestampUnit.getMillis();
+        if (prefixes > 0 && ticks < 1L) {
+            throw new IllegalArgumentException("Rotation window " + window
+                    + " is shorter than the timestamp unit " + timestampUnit);
         }
-        return lsb;
+        this.rotationPrefixes = prefixes;
+        this.rotationTicks = Math.max(1L, ticks);
+    }
+
+    /**
+     * Moves the shared random prefix into the group of the prefixes active
+     * within the window of the instant. The prefixes are folded into the
+     * group by their value, so the random prefixes stay evenly spread over
+     * the group. Use together with {@link #alignToWindow(Instant, Duration)},
+     * so that the whole batch sharing the prefix falls into the same window.
+     *
+     * @param prefix Shared random prefix value, or -1 for the random prefix
+     * per key
+     * @param instant The instant to be embedded into the keys
+     * @return The prefix value to be used for the keys, after the rotation
+     */
+    public long activePrefix(long prefix, Instant instant) {
+        if (rotationPrefixes == 0 || prefix == -1L) {
+            return prefix;
+        }
+        return rotatePrefix(prefix, timestampCode(instant));
+    }
+
+    /**
+     * Moves the start of the batch back, if needed, so that the batch ends
+     * within the rotation window it starts in. Then a single shared prefix
+     * from {@link #activePrefix(long, Instant)} keeps the batch within the
+     * active group.
+     *
+     * @param start Instant of the first key of the batch
+     * @param span Time between the first and the last keys of the batch,
+     * shorter than the rotation window
+     * @return Instant of the first key of the aligned batch
+     */
+    public Instant alignToWindow(Instant start, Duration span) {
+        if (rotationPrefixes == 0) {
+            return start;
+        }
+        if (span.toMillis() >= rotationTicks * timestampUnit.getMillis()) {
+            throw new IllegalArgumentException("Batch span " + span
+                    + " does not fit into the rotation window " + getRotationWindow());
+        }
+        long last = timestampCode(start.plus(span));
+        if (timestampCode(start) / rotationTicks == last / rotationTicks) {
+            return start;
+        }
+        // end the batch at the last unit of the window of its start
+        long units = last % rotationTicks + 1L;
+        return start.minusMillis(units * timestampUnit.getMillis());
+    }
+
+    private long rotatePrefix(long prefix, long tsCode) {
+        int bits = getPrefixBits();
+        long index = (prefix >>> (64 - bits)) % rotationPrefixes;
+        long window = tsCode / rotationTicks;
+        return ((window * rotationPrefixes + index) & ((1L << bits) - 1L)) << (64 - bits);
     }
 
     protected final long update(long msb, long prefix, Instant instant) {
-        long tsMask = Holder.timestampMasks[maskPos];
-        long tsCode = getTimestampCode(instant);
-        tsCode = tsCode << (TIMESTAMP_FIELD_LOW_BIT - maskPos);
+        long tsCode = timestampCode(instant);
+        if (rotationPrefixes > 0 && prefix == -1L) {
+            prefix = rotatePrefix(prefixOnTop(msb), tsCode);
+        }
+        return place(msb, prefix, tsCode);
+    }
+
+    private long place(long msb, long prefix, long tsCode) {
+        long tsMask = timestampMask;
+        tsCode = tsCode << timestampLowBit;
         long bits;
         if (prefix == -1L) {
             bits = msb & ~tsMask;
             bits |= tsCode & tsMask;
         } else {
-            long prefixMask = Holder.prefixMasks[maskPos];
             bits = msb & ~(prefixMask | tsMask);
-            bits |= (prefix & prefixMask) | (tsCode & tsMask);
+            bits |= ((prefix >>> prefixShift) & prefixMask) | (tsCode & tsMask);
         }
         return bits;
     }
 
+    /**
+     * @param msb The value, before byte reordering
+     * @return The value with the prefix field moved to the top bits
+     */
+    protected final long prefixOnTop(long msb) {
+        return msb << prefixShift;
+    }
+
+    /**
+     * Computes the smallest MSB value (before byte reordering) having the
+     * specified prefix and the timestamp code of the specified instant. All
+     * the keys generated with this prefix within the timestamp unit of the
+     * instant are greater or equal to this value.
+     *
+     * @param prefix Prefix value
+     * @param instant The instant to be used
+     * @return MSB value with all the random bits cleared
+     */
+    protected final long rangeBoundBits(long prefix, Instant instant) {
+        // the plain key position, without the rotation
+        return place(0L, prefix, timestampCode(instant));
+    }
+
+    /**
+     * Computes the timestamp code according to the configured layout: the
+     * number of timestamp units since the UNIX epoch, modulo 2^timestampBits.
+     *
+     * @param instant the instant to be used
+     * @return timestamp code between 0 and 2^timestampBits - 1, inclusive
+     */
+    public long timestampCode(Instant instant) {
+        long ticks = timestampUnit.toTicks(instant);
+        if (ticks < 0L) {
+            throw new IllegalArgumentException(
+                    "Instant out of timestamp range: " + instant);
+        }
+        return ticks & ((1L << timestampBits) - 1L);
+    }
+
     /**
      * Computes the second-precision timestamp code: seconds since
      * 2020-01-01T00:00:00Z, in the range {@code [0, 2^30)}.
@@ -130,6 +567,29 @@ public class BaseKeyGen {
                 | (b5 << 24) | (b4 << 16) | (b7 << 8) | b6;
     }
 
+    /**
+     * Builds the infinite stream of keys produced by the generator function.
+     * Each split of the stream gets its own random substream, so that the
+     * parallel stream generates the keys without the shared state.
+     *
+     * @param <T> Key type
+     * @param generator Generates the key from the random stream
+     * @return Sequential stream, which may be turned parallel
+     */
+    protected static <T> Stream<T> keyStream(Function<SplittableRandom, T> generator) {
+        SplittableRandom random = new SplittableRandom(Holder.numberGenerator.nextLong());
+        return StreamSupport.stream(
+                new KeySpliterator<>(generator, random, 0L, Long.MAX_VALUE), false);
+    }
+
+    /**
+     * @param instant The instant, or null for the current time
+     * @return The instant to be embedded into the key
+     */
+    protected static Instant instantOrNow(Instant instant) {
+        return (instant == null) ? Instant.now() : instant;
+    }
+
     /**
      * Convert a UUID value to a base64 text representation.
      *
@@ -156,6 +616,8 @@ public class BaseKeyGen {
 
         static final long prefixMasks[];
         static final long timestampMasks[];
+        static final ConcurrentHashMap<Integer, long[]> layoutMasks
+                = new ConcurrentHashMap<>();
 
         static {
             long pf[] = new long[32];
@@ -168,6 +630,25 @@ public class BaseKeyGen {
             }
             prefixMasks = pf;
             timestampMasks = ts;
+            layoutMasks.put(TIMESTAMP_BITS, ts);
+        }
+
+        /**
+         * Timestamp masks for the custom timestamp width, one per prefix
+         * length.
+         *
+         * @param bits Timestamp width, in bits
+         * @return Array of timestamp masks indexed by the mask position
+         */
+        static long[] timestampMasks(int bits) {
+            return layoutMasks.computeIfAbsent(bits, k -> {
+                long ts[] = new long[32];
+                ts[0] = (((1L << k) - 1) << (63 - k));
+                for (int i = 1; i < 32; ++i) {
+                    ts[i] = (ts[i - 1] >>> 1);
+                }
+                return ts;
+            });
         }
     }
 }
@@ -0,0 +1,120 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap blocked Bloom filter of UUID values, shared by the threads.
+ *
+ * All the bits of the key are set within one 512-bit block (a cache line),
+ * and the blocks are guarded by the striped locks. The bits are held in
+ * direct buffers of up to 128 MB each, so the filter may grow beyond the
+ * 2 GB limit of a single buffer.
+ *
+ * @author zinal
+ */
+public class BloomFilter {
+
+    private static final int BLOCK_LONGS = 8;
+    private static final int CHUNK_BLOCKS_BITS = 21;
+    private static final int LOCK_STRIPES = 1024;
+
+    private final long blocks;
+    private final int hashes;
+    private final LongBuffer[] chunks;
+    private final Object[] locks;
+
+    /**
+     * @param expected Expected number of keys
+     * @param bitsPerKey Filter size, in bits per key
+     */
+    public BloomFilter(long expected, int bitsPerKey) {
+        if (expected < 1L || bitsPerKey < 1 || bitsPerKey > 64) {
+            throw new IllegalArgumentException("Illegal filter size: "
+                    + expected + " keys, " + bitsPerKey + " bits per key");
+        }
+        this.blocks = Math.max(1L, (expected * bitsPerKey + 511L) / 512L);
+        // optimal hash count is ln(2) * bits per key, a bit less for the blocked filter
+        this.hashes = Math.max(1, (int) Math.round(bitsPerKey * 0.6));
+        long chunkBlocks = 1L << CHUNK_BLOCKS_BITS;
+        int count = (int) ((blocks + chunkBlocks - 1L) / chunkBlocks);
+        this.chunks = new LongBuffer[count];
+        for (int i = 0; i < count; ++i) {
+            long size = Math.min(chunkBlocks, blocks - i * chunkBlocks);
+            chunks[i] = ByteBuffer.allocateDirect((int) (size * BLOCK_LONGS * 8))
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            locks[i] = new Object();
+        }
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * @return Off-heap memory used, in bytes
+     */
+    public long memoryBytes() {
+        return blocks * BLOCK_LONGS * 8L;
+    }
+
+    /**
+     * Adds the key to the filter.
+     *
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @return true, if the key might have been added before, false if it
+     * definitely has not
+     */
+    public boolean put(long msb, long lsb) {
+        return probe(msb, lsb, true);
+    }
+
+    /**
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @return true, if the key might have been added, false if it definitely
+     * has not
+     */
+    public boolean mightContain(long msb, long lsb) {
+        return probe(msb, lsb, false);
+    }
+
+    private boolean probe(long msb, long lsb, boolean insert) {
+        long h1 = mix(msb * 0x9E3779B97F4A7C15L ^ lsb);
+        long h2 = mix(lsb * 0xC2B2AE3D27D4EB4FL ^ msb);
+        long block = Long.remainderUnsigned(h1, blocks);
+        LongBuffer chunk = chunks[(int) (block >>> CHUNK_BLOCKS_BITS)];
+        int base = (int) (block & ((1L << CHUNK_BLOCKS_BITS) - 1L)) * BLOCK_LONGS;
+        long step = mix(h1 ^ h2) | 1L;
+        boolean present = true;
+        synchronized (locks[(int) (block % LOCK_STRIPES)]) {
+            long h = h2;
+            for (int i = 0; i < hashes; ++i) {
+                int bit = (int) (h >>> 55);
+                int index = base + (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long word = chunk.get(index);
+                if ((word & mask) == 0L) {
+                    present = false;
+                    if (!insert) {
+                        break;
+                    }
+                    chunk.put(index, word | mask);
+                }
+                h += step;
+            }
+        }
+        return present;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
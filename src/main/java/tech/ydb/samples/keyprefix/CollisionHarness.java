@@ -0,0 +1,268 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Uniqueness stress test for the generated keys.
+ *
+ * The first pass generates the keys on all threads through the shared Bloom
+ * filter, collecting the keys which hit the filter as the collision
+ * candidates. The second pass regenerates the same keys from the same random
+ * streams, and counts the exact occurrences of the candidates, so the false
+ * positives of the filter are excluded. The number of collisions is then
+ * compared to the birthday bound for the number of random bits in the key.
+ *
+ * @author zinal
+ */
+public class CollisionHarness {
+
+    private final KeySource source;
+    private final int randomBits;
+    private final int threads;
+    private final int bitsPerKey;
+
+    /**
+     * @param source Key generation method
+     * @param randomBits Number of random bits in the keys produced
+     * @param threads Number of generator threads
+     * @param bitsPerKey Bloom filter size, in bits per key
+     */
+    public CollisionHarness(KeySource source, int randomBits, int threads, int bitsPerKey) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Illegal thread count: " + threads);
+        }
+        this.source = source;
+        this.randomBits = randomBits;
+        this.threads = threads;
+        this.bitsPerKey = bitsPerKey;
+    }
+
+    /**
+     * Builds the key source for the key generator and generation scope.
+     *
+     * @param gen Key generator, which must not be in the sequential mode, and
+     * must use the reproducible layout
+     * @param scope Generation scope
+     * @param instant The instant embedded into all keys
+     * @param prefix The prefix for the {@link Scope#PREFIX_INSTANT} scope
+     * @return Key source
+     */
+    public static KeySource sourceOf(UuidKeyGen gen, Scope scope, Instant instant, long prefix) {
+        if (gen.isSequential()) {
+            throw new IllegalArgumentException("Sequential keys cannot be regenerated");
+        }
+        if (!gen.getLayout().isReproducible()) {
+            throw new IllegalArgumentException("Keys of the " + gen.getLayout()
+                    + " layout cannot be regenerated");
+        }
+        final long p = (scope == Scope.PREFIX_INSTANT) ? prefix : -1L;
+        return random -> gen.nextValue(p, instant, random);
+    }
+
+    /**
+     * @param gen Key generator
+     * @param scope Generation scope
+     * @return Number of random bits in the keys generated within the scope
+     */
+    public static int randomBitsOf(UuidKeyGen gen, Scope scope) {
+        // MSB below the timestamp, except the version, plus LSB except the variant
+        int bits = (gen.getLayoutLowBit() - 4) + 62;
+        if (scope == Scope.INSTANT) {
+            bits += gen.getPrefixBits();
+        }
+        return bits;
+    }
+
+    /**
+     * Expected number of colliding pairs among the uniformly random keys.
+     *
+     * @param keys Number of keys
+     * @param randomBits Number of random bits in the key
+     * @return Birthday bound estimate, n*(n-1)/2 / 2^bits
+     */
+    public static double expectedCollisions(long keys, int randomBits) {
+        double n = keys;
+        return Math.scalb(n * (n - 1.0) / 2.0, -randomBits);
+    }
+
+    /**
+     * Runs both passes.
+     *
+     * @param keys Total number of keys to be generated
+     * @param seed Seed of the random streams
+     * @return Test results
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    public Result run(long keys, long seed) throws InterruptedException {
+        BloomFilter filter = new BloomFilter(Math.max(keys, 1L), bitsPerKey);
+        UuidHashSet candidates = new UuidHashSet();
+        long started = System.nanoTime();
+        runThreads(keys, seed, (random, count) -> {
+            for (long i = 0; i < count; ++i) {
+                UUID v = source.next(random);
+                long msb = v.getMostSignificantBits();
+                long lsb = v.getLeastSignificantBits();
+                if (filter.put(msb, lsb)) {
+                    synchronized (candidates) {
+                        candidates.add(msb, lsb);
+                    }
+                }
+            }
+            return null;
+        });
+        long firstPass = System.nanoTime() - started;
+        started = System.nanoTime();
+        List<UuidLongMap> hits = runThreads(keys, seed, (random, count) -> {
+            UuidLongMap local = new UuidLongMap(16, 0L);
+            for (long i = 0; i < count; ++i) {
+                UUID v = source.next(random);
+                long msb = v.getMostSignificantBits();
+                long lsb = v.getLeastSignificantBits();
+                if (candidates.contains(msb, lsb)) {
+                    local.addTo(msb, lsb, 1L);
+                }
+            }
+            return local;
+        });
+        long secondPass = System.nanoTime() - started;
+        UuidLongMap total = new UuidLongMap(candidates.size(), 0L);
+        for (UuidLongMap local : hits) {
+            local.forEach((msb, lsb, value) -> total.addTo(msb, lsb, value));
+        }
+        long[] collisions = new long[1];
+        total.forEach((msb, lsb, value) -> collisions[0] += value - 1L);
+        return new Result(keys, threads, randomBits, candidates.size(),
+                collisions[0], firstPass, secondPass, filter.memoryBytes());
+    }
+
+    private <T> List<T> runThreads(long keys, long seed, Worker<T> worker)
+            throws InterruptedException {
+        // the same split sequence on both passes gives the same streams
+        SplittableRandom root = new SplittableRandom(seed);
+        List<T> output = new ArrayList<>(threads);
+        List<Thread> running = new ArrayList<>(threads);
+        RuntimeException[] failure = new RuntimeException[1];
+        for (int t = 0; t < threads; ++t) {
+            final SplittableRandom random = root.split();
+            final long count = keys / threads + ((t < keys % threads) ? 1L : 0L);
+            output.add(null);
+            final int index = t;
+            Thread th = new Thread(() -> {
+                try {
+                    T v = worker.run(random, count);
+                    synchronized (output) {
+                        output.set(index, v);
+                    }
+                } catch (RuntimeException ex) {
+                    synchronized (output) {
+                        failure[0] = ex;
+                    }
+                }
+            }, "collide-" + t);
+            running.add(th);
+            th.start();
+        }
+        for (Thread th : running) {
+            th.join();
+        }
+        synchronized (output) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return output;
+        }
+    }
+
+    /**
+     * Generation scope of the keys being checked.
+     */
+    public enum Scope {
+        /**
+         * Random prefix per key, all keys at the same instant.
+         */
+        INSTANT,
+        /**
+         * Single prefix and single instant for all keys, like the FILL
+         * batch generated with {@code nextValue(prefix, date)}.
+         */
+        PREFIX_INSTANT
+    }
+
+    /**
+     * Produces the keys from the random stream.
+     */
+    public interface KeySource {
+
+        UUID next(SplittableRandom random);
+    }
+
+    private interface Worker<T> {
+
+        T run(SplittableRandom random, long count);
+    }
+
+    /**
+     * Results of the test.
+     */
+    public static final class Result {
+
+        private final long keys;
+        private final int threads;
+        private final int randomBits;
+        private final long candidates;
+        private final long collisions;
+        private final long firstPassNanos;
+        private final long secondPassNanos;
+        private final long filterBytes;
+
+        Result(long keys, int threads, int randomBits, long candidates, long collisions,
+                long firstPassNanos, long secondPassNanos, long filterBytes) {
+            this.keys = keys;
+            this.threads = threads;
+            this.randomBits = randomBits;
+            this.candidates = candidates;
+            this.collisions = collisions;
+            this.firstPassNanos = firstPassNanos;
+            this.secondPassNanos = secondPassNanos;
+            this.filterBytes = filterBytes;
+        }
+
+        public long getKeys() {
+            return keys;
+        }
+
+        public long getCandidates() {
+            return candidates;
+        }
+
+        public long getCollisions() {
+            return collisions;
+        }
+
+        public double getExpectedCollisions() {
+            return expectedCollisions(keys, randomBits);
+        }
+
+        /**
+         * @return Keys per second per thread on the first pass, which
+         * includes the filter updates
+         */
+        public double getRatePerThread() {
+            return keys * 1e9 / Math.max(1L, firstPassNanos) / threads;
+        }
+
+        public String format() {
+            return String.format("%d keys, %d random bits: %d collisions, "
+                    + "%.3g expected (birthday bound), %d filter candidates; "
+                    + "%.0f keys/sec per thread on %d threads, "
+                    + "pass 1 %.1f s, pass 2 %.1f s, filter %d MB",
+                    keys, randomBits, collisions, getExpectedCollisions(), candidates,
+                    getRatePerThread(), threads, firstPassNanos / 1e9,
+                    secondPassNanos / 1e9, filterBytes >> 20);
+        }
+    }
+}
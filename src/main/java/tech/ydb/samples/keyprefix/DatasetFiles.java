@@ -0,0 +1,344 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Offline storage for the generated FILL data, sharded into pairs of
+ * memory-mapped files.
+ *
+ * The ".keys" file contains the 32-byte header followed by the fixed-width
+ * records: three UUIDs, the timestamp, and the offsets of both ballast strings.
+ * The ".text" file contains the ballast strings as the length-prefixed UTF-8
+ * byte sequences. Records are grouped into batches of the size specified in
+ * the header, each batch corresponding to a single FILL step.
+ *
+ * @author zinal
+ */
+public class DatasetFiles {
+
+    static final int MAGIC = 0x594B5058;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 80;
+    static final long CHUNK_SIZE = 64L * 1024L * 1024L;
+
+    static final String KEYS_SUFFIX = ".keys";
+    static final String TEXT_SUFFIX = ".text";
+
+    private DatasetFiles() {
+    }
+
+    /**
+     * @param dir Dataset directory
+     * @param shard Shard number
+     * @return Base name of the shard files, without the suffix
+     */
+    public static Path shardPath(Path dir, int shard) {
+        return dir.resolve(String.format("shard-%05d", shard));
+    }
+
+    /**
+     * Lists the shards available in the dataset directory.
+     *
+     * @param dir Dataset directory
+     * @return Base names of the shard files, ordered
+     * @throws IOException on listing error
+     */
+    public static List<Path> listShards(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().endsWith(KEYS_SUFFIX))
+                    .map(p -> {
+                        String name = p.getFileName().toString();
+                        return p.resolveSibling(name.substring(0,
+                                name.length() - KEYS_SUFFIX.length()));
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path withSuffix(Path base, String suffix) {
+        return base.resolveSibling(base.getFileName().toString() + suffix);
+    }
+
+    /**
+     * Writes a single shard. Not thread safe, each shard is expected to be
+     * written by a single thread.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final int batchSize;
+        private final FileChannel keysChannel;
+        private final FileChannel textChannel;
+        private final MappedSink keys;
+        private final MappedSink text;
+        private long records;
+
+        public Writer(Path base, int batchSize) throws IOException {
+            this.batchSize = batchSize;
+            this.keysChannel = FileChannel.open(withSuffix(base, KEYS_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.textChannel = FileChannel.open(withSuffix(base, TEXT_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // the keys chunk is a multiple of the record size past the header
+            this.keys = new MappedSink(keysChannel, HEADER_SIZE,
+                    (CHUNK_SIZE / RECORD_SIZE) * RECORD_SIZE);
+            this.text = new MappedSink(textChannel, 0L, CHUNK_SIZE);
+            this.records = 0L;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Appends the batch of entries, which has to be of the configured
+         * batch size.
+         *
+         * @param batch Entries to be written
+         * @throws IOException on write error
+         */
+        public void write(List<Main.DataEntry> batch) throws IOException {
+            if (batch.size() != batchSize) {
+                throw new IllegalArgumentException("Illegal batch size " + batch.size()
+                        + ", expected " + batchSize);
+            }
+            for (Main.DataEntry e : batch) {
+                long b1 = writeString(e.ballast1);
+                long b2 = writeString(e.ballast2);
+                ByteBuffer bb = keys.reserve(RECORD_SIZE);
+                putUuid(bb, e.mainId);
+                putUuid(bb, e.subId);
+                putUuid(bb, e.refId);
+                bb.putLong(e.tv.getEpochSecond());
+                bb.putInt(e.tv.getNano());
+                bb.putLong(b1);
+                bb.putLong(b2);
+                bb.putInt(0);
+                ++records;
+            }
+        }
+
+        private long writeString(String v) throws IOException {
+            byte[] data = v.getBytes(StandardCharsets.UTF_8);
+            long position = text.position();
+            ByteBuffer bb = text.reserve(4 + data.length);
+            bb.putInt(data.length);
+            bb.put(data);
+            return position;
+        }
+
+        private static void putUuid(ByteBuffer bb, UUID v) {
+            bb.putLong(v.getMostSignificantBits());
+            bb.putLong(v.getLeastSignificantBits());
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(RECORD_SIZE);
+                header.putInt(batchSize);
+                header.putLong(records);
+                header.putLong(0L);
+                header.flip();
+                keysChannel.write(header, 0L);
+                keys.force();
+                text.force();
+                keysChannel.truncate(keys.position());
+                textChannel.truncate(text.position());
+            } finally {
+                try {
+                    keysChannel.close();
+                } finally {
+                    textChannel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a single shard through the memory-mapped buffers. Not thread
+     * safe, each shard is expected to be read by a single thread.
+     */
+    public static final class Reader implements AutoCloseable {
+
+        private final FileChannel keysChannel;
+        private final FileChannel textChannel;
+        private final MappedSource keys;
+        private final MappedSource text;
+        private final int batchSize;
+        private final long records;
+        private long current;
+
+        public Reader(Path base) throws IOException {
+            this.keysChannel = FileChannel.open(withSuffix(base, KEYS_SUFFIX),
+                    StandardOpenOption.READ);
+            this.textChannel = FileChannel.open(withSuffix(base, TEXT_SUFFIX),
+                    StandardOpenOption.READ);
+            this.keys = new MappedSource(keysChannel);
+            this.text = new MappedSource(textChannel);
+            ByteBuffer header = keys.at(0L, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != RECORD_SIZE) {
+                close();
+                throw new IOException("Illegal dataset file format: " + base);
+            }
+            this.batchSize = header.getInt();
+            this.records = header.getLong();
+            this.current = 0L;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * @return Number of batches stored in the shard
+         */
+        public long getBatches() {
+            return (batchSize > 0) ? (records / batchSize) : 0L;
+        }
+
+        /**
+         * Reads the next batch of entries.
+         *
+         * @return Next batch, or null at the end of the shard
+         * @throws IOException on read error
+         */
+        public List<Main.DataEntry> nextBatch() throws IOException {
+            if (current + batchSize > records || batchSize <= 0) {
+                return null;
+            }
+            ArrayList<Main.DataEntry> output = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; ++i) {
+                ByteBuffer bb = keys.at(HEADER_SIZE + current * RECORD_SIZE, RECORD_SIZE);
+                Main.DataEntry e = new Main.DataEntry();
+                e.mainId = new UUID(bb.getLong(), bb.getLong());
+                e.subId = new UUID(bb.getLong(), bb.getLong());
+                e.refId = new UUID(bb.getLong(), bb.getLong());
+                long seconds = bb.getLong();
+                int nanos = bb.getInt();
+                e.tv = Instant.ofEpochSecond(seconds, nanos);
+                long b1 = bb.getLong();
+                long b2 = bb.getLong();
+                e.ballast1 = readString(b1);
+                e.ballast2 = readString(b2);
+                output.add(e);
+                ++current;
+            }
+            return output;
+        }
+
+        private String readString(long position) throws IOException {
+            int length = text.at(position, 4).getInt();
+            ByteBuffer bb = text.at(position + 4L, length).slice();
+            bb.limit(length);
+            return StandardCharsets.UTF_8.decode(bb).toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                keysChannel.close();
+            } finally {
+                textChannel.close();
+            }
+        }
+    }
+
+    /**
+     * Append-only writer over the sequence of mapped file regions.
+     */
+    private static final class MappedSink {
+
+        private final FileChannel channel;
+        private final long chunk;
+        private MappedByteBuffer buffer;
+        private long base;
+
+        MappedSink(FileChannel channel, long start, long chunk) {
+            this.channel = channel;
+            this.chunk = chunk;
+            this.buffer = null;
+            this.base = start;
+        }
+
+        long position() {
+            return (buffer == null) ? base : base + buffer.position();
+        }
+
+        ByteBuffer reserve(int length) throws IOException {
+            if (buffer == null || buffer.remaining() < length) {
+                long position = position();
+                if (buffer != null) {
+                    buffer.force();
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                        position, Math.max(chunk, length));
+                base = position;
+            }
+            return buffer;
+        }
+
+        void force() {
+            if (buffer != null) {
+                buffer.force();
+            }
+        }
+    }
+
+    /**
+     * Random access reader over the mapped file regions.
+     */
+    private static final class MappedSource {
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long base;
+
+        MappedSource(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.buffer = null;
+            this.base = 0L;
+        }
+
+        ByteBuffer at(long position, int length) throws IOException {
+            if (position + length > size) {
+                throw new IOException("Read past the end of file at " + position);
+            }
+            if (buffer == null || position < base
+                    || position + length > base + buffer.capacity()) {
+                long len = Math.min(Math.max(CHUNK_SIZE, length), size - position);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, len);
+                base = position;
+            }
+            buffer.position((int) (position - base));
+            return buffer;
+        }
+    }
+}
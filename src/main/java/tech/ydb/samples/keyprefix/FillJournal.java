@@ -0,0 +1,208 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checkpoint journal of the completed FILL steps, used to resume the
+ * interrupted FILL without redoing the finished work.
+ *
+ * The journal is an append-only file: the 16-byte header (magic, version,
+ * seed) followed by the records holding the bitset of completed steps for a
+ * single day and table pair. Records are appended on flush for the days
+ * changed since the previous flush, so the latest record of each day
+ * contains its complete state. A truncated record at the end of the file,
+ * left by a crash during the flush, is ignored on load.
+ *
+ * @author zinal
+ */
+public class FillJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x594B504A;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private final long flushMillis;
+    private final Map<Key, BitSet> done = new HashMap<>();
+    private final Set<Key> dirty = new HashSet<>();
+    private long lastFlush;
+
+    /**
+     * Opens the journal, loading the completed steps recorded before.
+     *
+     * @param path Journal file
+     * @param seed Workload seed. The journal is only usable with the seeded
+     * workload, as the resumed steps must generate the same rows.
+     * @param flushMillis Minimal interval between the automatic flushes
+     * @throws IOException on file access error, or on the seed mismatch
+     */
+    public FillJournal(Path path, long seed, long flushMillis) throws IOException {
+        this.flushMillis = flushMillis;
+        boolean exists = Files.exists(path) && Files.size(path) >= HEADER_SIZE;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (exists) {
+                load(seed);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(seed).flip();
+                channel.truncate(0L);
+                channel.write(header, 0L);
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    private void load(long seedValue) throws IOException {
+        long size = channel.size();
+        ByteBuffer bb = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (bb.hasRemaining() && channel.read(bb, bb.position()) > 0) {
+            // read the whole file
+        }
+        bb.flip();
+        if (bb.getInt() != MAGIC || bb.getInt() != VERSION) {
+            throw new IOException("Illegal FILL journal format");
+        }
+        if (bb.getLong() != seedValue) {
+            throw new IOException("FILL journal was written with a different gen.seed");
+        }
+        long valid = HEADER_SIZE;
+        while (bb.remaining() >= 12) {
+            long day = bb.getInt();
+            int table = bb.getInt();
+            int words = bb.getInt();
+            if (words < 0 || bb.remaining() < 8 * words) {
+                break;
+            }
+            long[] bits = new long[words];
+            for (int i = 0; i < words; ++i) {
+                bits[i] = bb.getLong();
+            }
+            done.put(new Key(day, table), BitSet.valueOf(bits));
+            valid = bb.position();
+        }
+        // drop the partial record, if any
+        channel.truncate(valid);
+    }
+
+    /**
+     * @param day FILL day
+     * @param table Table pair number
+     * @param step Step number within the day
+     * @return true, if the step has been completed before
+     */
+    public synchronized boolean isDone(LocalDate day, int table, int step) {
+        BitSet bs = done.get(new Key(day.toEpochDay(), table));
+        return bs != null && bs.get(step);
+    }
+
+    /**
+     * @param day FILL day
+     * @param table Table pair number
+     * @param steps Number of steps per day
+     * @return Number of the completed steps
+     */
+    public synchronized int countDone(LocalDate day, int table, int steps) {
+        BitSet bs = done.get(new Key(day.toEpochDay(), table));
+        return (bs == null) ? 0 : bs.get(0, steps).cardinality();
+    }
+
+    /**
+     * Records the step as completed, flushing the journal if the flush
+     * interval has passed.
+     *
+     * @param day FILL day
+     * @param table Table pair number
+     * @param step Step number within the day
+     * @throws IOException on write error
+     */
+    public synchronized void markDone(LocalDate day, int table, int step) throws IOException {
+        Key key = new Key(day.toEpochDay(), table);
+        done.computeIfAbsent(key, k -> new BitSet()).set(step);
+        dirty.add(key);
+        if (System.currentTimeMillis() - lastFlush >= flushMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends the state of the days changed since the previous flush.
+     *
+     * @throws IOException on write error
+     */
+    public synchronized void flush() throws IOException {
+        lastFlush = System.currentTimeMillis();
+        if (dirty.isEmpty()) {
+            return;
+        }
+        int size = 0;
+        for (Key key : dirty) {
+            size += 12 + 8 * done.get(key).toLongArray().length;
+        }
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        for (Key key : dirty) {
+            long[] bits = done.get(key).toLongArray();
+            bb.putInt((int) key.day).putInt(key.table).putInt(bits.length);
+            for (long v : bits) {
+                bb.putLong(v);
+            }
+        }
+        bb.flip();
+        long position = channel.size();
+        while (bb.hasRemaining()) {
+            position += channel.write(bb, position);
+        }
+        channel.force(false);
+        dirty.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static final class Key {
+
+        final long day;
+        final int table;
+
+        Key(long day, int table) {
+            this.day = day;
+            this.table = table;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(day) * 31 + table;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return day == other.day && table == other.table;
+        }
+    }
+}
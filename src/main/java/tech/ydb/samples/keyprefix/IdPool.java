@@ -0,0 +1,80 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded pool of the recently observed keys, used to pick the keys for the
+ * point lookups in TEST. New keys overwrite the oldest ones.
+ *
+ * @author zinal
+ */
+public class IdPool {
+
+    private final AtomicReferenceArray<UUID> items;
+    private final int mask;
+    private final AtomicLong position = new AtomicLong();
+
+    /**
+     * @param capacityBits Pool capacity, as the power of two
+     */
+    public IdPool(int capacityBits) {
+        this.items = new AtomicReferenceArray<>(1 << capacityBits);
+        this.mask = (1 << capacityBits) - 1;
+    }
+
+    public void add(UUID id) {
+        if (id != null) {
+            items.set((int) (position.getAndIncrement() & mask), id);
+        }
+    }
+
+    /**
+     * @return Number of keys available in the pool
+     */
+    public int size() {
+        return (int) Math.min(position.get(), (long) items.length());
+    }
+
+    /**
+     * @return Maximal number of keys in the pool
+     */
+    public int capacity() {
+        return items.length();
+    }
+
+    /**
+     * Picks the key according to the access distribution over the recency of
+     * the keys. The distribution has to be defined over the pool capacity.
+     *
+     * @param random Random stream to be used
+     * @param dist Access distribution, higher positions are more recent keys
+     * @return Selected key from the pool, or null if the pool is empty
+     */
+    public UUID pick(SplittableRandom random, AccessDistribution dist) {
+        int count = size();
+        if (count == 0) {
+            return null;
+        }
+        long rank = dist.getSize() - 1L - dist.sample(random);
+        if (rank >= count) {
+            rank = rank % count;
+        }
+        long last = position.get() - 1L;
+        return items.get((int) ((last - rank) & mask));
+    }
+
+    /**
+     * @param random Random stream to be used
+     * @return Random key from the pool, or null if the pool is empty
+     */
+    public UUID pick(SplittableRandom random) {
+        int count = size();
+        if (count == 0) {
+            return null;
+        }
+        return items.get(random.nextInt(count));
+    }
+}
@@ -0,0 +1,69 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of the pre-sorted lists, used to combine the per-prefix key
+ * range reads into a single time-ordered output.
+ *
+ * @author zinal
+ */
+public class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    /**
+     * Merges the sorted input lists into a single sorted list.
+     *
+     * @param <T> Element type
+     * @param sources Input lists, each sorted according to the comparator
+     * @param cmp Comparator defining the output order
+     * @param limit Maximum number of elements to return
+     * @return Merged list of at most {@code limit} elements
+     */
+    public static <T> List<T> merge(List<List<T>> sources, Comparator<? super T> cmp, int limit) {
+        PriorityQueue<Cursor<T>> queue = new PriorityQueue<>(
+                Math.max(1, sources.size()), (a, b) -> cmp.compare(a.current(), b.current()));
+        for (List<T> src : sources) {
+            if (src != null && !src.isEmpty()) {
+                queue.add(new Cursor<>(src));
+            }
+        }
+        ArrayList<T> output = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        while (output.size() < limit) {
+            Cursor<T> c = queue.poll();
+            if (c == null) {
+                break;
+            }
+            output.add(c.current());
+            if (c.advance()) {
+                queue.add(c);
+            }
+        }
+        return output;
+    }
+
+    private static final class Cursor<T> {
+
+        private final List<T> items;
+        private int position;
+
+        Cursor(List<T> items) {
+            this.items = items;
+            this.position = 0;
+        }
+
+        T current() {
+            return items.get(position);
+        }
+
+        boolean advance() {
+            ++position;
+            return position < items.size();
+        }
+    }
+}
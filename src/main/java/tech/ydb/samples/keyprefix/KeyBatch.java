@@ -0,0 +1,48 @@
+package tech.ydb.samples.keyprefix;
+
+/**
+ * Bulk application of the key layout to the blocks of random values: clears
+ * the layout fields, sets the fixed bits (version, variant, prefix and
+ * timestamp), and converts the MSB to the YDB (GUID) byte order.
+ *
+ * Java 8 variant: the scalar loop. The Java 21 variant in src/main/java21
+ * uses the Vector API when the jdk.incubator.vector module is present.
+ *
+ * @author zinal
+ */
+final class KeyBatch {
+
+    private KeyBatch() {
+    }
+
+    /**
+     * @return Description of the implementation, for the reports
+     */
+    static String describe() {
+        return "scalar";
+    }
+
+    /**
+     * Applies the layout in place.
+     *
+     * @param msb Random MSB values, replaced with the Java MSB of the keys
+     * @param lsb Random LSB values, replaced with the LSB of the keys
+     * @param count Number of keys
+     * @param msbKeep MSB bits kept from the random value
+     * @param msbSet MSB bits set in all keys, before the reordering
+     * @param lsbKeep LSB bits kept from the random value
+     * @param lsbSet LSB bits set in all keys
+     */
+    static void apply(long[] msb, long[] lsb, int count,
+            long msbKeep, long msbSet, long lsbKeep, long lsbSet) {
+        applyScalar(msb, lsb, 0, count, msbKeep, msbSet, lsbKeep, lsbSet);
+    }
+
+    static void applyScalar(long[] msb, long[] lsb, int from, int to,
+            long msbKeep, long msbSet, long lsbKeep, long lsbSet) {
+        for (int i = from; i < to; ++i) {
+            msb[i] = BaseKeyGen.reorder((msb[i] & msbKeep) | msbSet);
+            lsb[i] = (lsb[i] & lsbKeep) | lsbSet;
+        }
+    }
+}
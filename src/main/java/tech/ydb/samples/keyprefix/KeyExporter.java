@@ -0,0 +1,288 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming exporter of the generated keys, used to pre-generate the key
+ * pools for other systems.
+ *
+ * The generator threads take the chunks of keys by number, generate them
+ * into the direct buffers, and pass the buffers to the writer running in
+ * the calling thread. The writer either writes the chunks as they come, or
+ * restores the chunk order. The number of chunks in flight is bounded, and
+ * the buffers are reused. With the seed, each chunk draws its keys from the
+ * random stream derived from the seed and the chunk number, so the ordered
+ * output with the fixed seed and instant is reproducible. Without the seed,
+ * each chunk is seeded from the shared SecureRandom, so the exported keys
+ * cannot be predicted from a single guessed seed.
+ *
+ * @author zinal
+ */
+public class KeyExporter {
+
+    private static final int CHUNK_KEYS = 8192;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes();
+
+    private final UuidKeyGen keyGen;
+    private final Format format;
+    private final int threads;
+    private final boolean ordered;
+    private final RateLimiter limiter;
+    private final int chunkKeys;
+
+    /**
+     * @param keyGen Key generator
+     * @param format Output format
+     * @param threads Number of generator threads
+     * @param ordered true to write the chunks in order
+     * @param rate Keys per second, or 0 for unlimited
+     */
+    public KeyExporter(UuidKeyGen keyGen, Format format, int threads,
+            boolean ordered, double rate) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Illegal thread count: " + threads);
+        }
+        this.keyGen = keyGen;
+        this.format = format;
+        this.threads = threads;
+        this.ordered = ordered;
+        if (rate > 0.0) {
+            this.limiter = new RateLimiter(rate, threads, 100L);
+            // about 100 chunks per second, to keep the output smooth
+            this.chunkKeys = (int) Math.max(1.0, Math.min(CHUNK_KEYS, rate / 100.0));
+        } else {
+            this.limiter = null;
+            this.chunkKeys = CHUNK_KEYS;
+        }
+    }
+
+    /**
+     * Generates and writes the keys.
+     *
+     * @param out Output channel, which is not closed
+     * @param count Number of keys, or 0 to run until interrupted
+     * @param seed Seed of the random streams, or null to seed each chunk
+     * from SecureRandom
+     * @param instant The instant embedded into the keys, or null for the
+     * current time
+     * @return Number of keys written
+     * @throws IOException on write error
+     * @throws InterruptedException if interrupted
+     */
+    public long export(WritableByteChannel out, long count, Long seed, Instant instant)
+            throws IOException, InterruptedException {
+        final long total = (count > 0L) ? count : Long.MAX_VALUE;
+        final long chunks = (total - 1L) / chunkKeys + 1L;
+        final int window = threads * CHUNKS_PER_THREAD;
+        final Semaphore inFlight = new Semaphore(window);
+        final AtomicLong nextChunk = new AtomicLong();
+        final LinkedBlockingQueue<Chunk> ready = new LinkedBlockingQueue<>();
+        final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> generators = new ArrayList<>(threads);
+        for (int t = 0; t < threads; ++t) {
+            Thread th = new Thread(() -> {
+                try {
+                    generate(total, chunks, seed, instant, inFlight, nextChunk, ready, free);
+                } catch (InterruptedException ix) {
+                    // writer has stopped
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }, "print-" + t);
+            th.setDaemon(true);
+            generators.add(th);
+            th.start();
+        }
+        long keys = 0L;
+        try {
+            Map<Long, Chunk> pending = new HashMap<>();
+            long written = 0L;
+            while (written < chunks) {
+                Chunk chunk = ready.poll(100L, TimeUnit.MILLISECONDS);
+                Throwable ex = failure.get();
+                if (ex != null) {
+                    throw new IOException("Key generation failed", ex);
+                }
+                if (chunk == null) {
+                    continue;
+                }
+                if (!ordered) {
+                    keys += write(out, chunk, free);
+                    inFlight.release();
+                    ++written;
+                    continue;
+                }
+                pending.put(chunk.number, chunk);
+                while ((chunk = pending.remove(written)) != null) {
+                    keys += write(out, chunk, free);
+                    inFlight.release();
+                    ++written;
+                }
+            }
+        } finally {
+            for (Thread th : generators) {
+                th.interrupt();
+            }
+            for (Thread th : generators) {
+                th.join();
+            }
+        }
+        return keys;
+    }
+
+    private void generate(long total, long chunks, Long seed, Instant instant,
+            Semaphore inFlight, AtomicLong nextChunk, LinkedBlockingQueue<Chunk> ready,
+            ConcurrentLinkedQueue<ByteBuffer> free) throws InterruptedException {
+        long[] msb = new long[chunkKeys];
+        long[] lsb = new long[chunkKeys];
+        while (true) {
+            inFlight.acquire();
+            long number = nextChunk.getAndIncrement();
+            if (number >= chunks) {
+                inFlight.release();
+                return;
+            }
+            int keys = (int) Math.min(chunkKeys, total - number * chunkKeys);
+            if (keys != msb.length) {
+                msb = new long[keys];
+                lsb = new long[keys];
+            }
+            if (limiter != null) {
+                limiter.acquire(keys);
+            }
+            SplittableRandom random = new SplittableRandom((seed == null)
+                    ? BaseKeyGen.Holder.numberGenerator.nextLong()
+                    : WorkloadRandom.mix(seed, number));
+            keyGen.nextValues(msb, lsb, -1L, BaseKeyGen.instantOrNow(instant), random);
+            ByteBuffer bb = free.poll();
+            if (bb == null) {
+                bb = ByteBuffer.allocateDirect(chunkKeys * format.width);
+            }
+            for (int i = 0; i < keys; ++i) {
+                encode(format, msb[i], lsb[i], bb);
+            }
+            bb.flip();
+            ready.add(new Chunk(number, keys, bb));
+        }
+    }
+
+    private static int write(WritableByteChannel out, Chunk chunk,
+            ConcurrentLinkedQueue<ByteBuffer> free) throws IOException {
+        while (chunk.data.hasRemaining()) {
+            out.write(chunk.data);
+        }
+        chunk.data.clear();
+        free.add(chunk.data);
+        return chunk.keys;
+    }
+
+    /**
+     * Writes the single key in the specified format.
+     *
+     * @param format Output format
+     * @param msb Most significant bits of the key, Java order
+     * @param lsb Least significant bits of the key
+     * @param bb Output buffer
+     */
+    static void encode(Format format, long msb, long lsb, ByteBuffer bb) {
+        switch (format) {
+            case BINARY:
+                bb.putLong(msb).putLong(lsb);
+                break;
+            case CANONICAL:
+                putHex(bb, msb >>> 32, 8);
+                bb.put((byte) '-');
+                putHex(bb, msb >>> 16, 4);
+                bb.put((byte) '-');
+                putHex(bb, msb, 4);
+                bb.put((byte) '-');
+                putHex(bb, lsb >>> 48, 4);
+                bb.put((byte) '-');
+                putHex(bb, lsb, 12);
+                bb.put((byte) '\n');
+                break;
+            case BASE64:
+                // the same as BaseKeyGen.toString(): logical byte order
+                long hi = BaseKeyGen.reorder(msb);
+                for (int i = 0; i < 5; ++i) {
+                    int v = (byteAt(hi, lsb, 3 * i) << 16)
+                            | (byteAt(hi, lsb, 3 * i + 1) << 8)
+                            | byteAt(hi, lsb, 3 * i + 2);
+                    bb.put(BASE64[(v >>> 18) & 63]).put(BASE64[(v >>> 12) & 63])
+                            .put(BASE64[(v >>> 6) & 63]).put(BASE64[v & 63]);
+                }
+                int last = byteAt(hi, lsb, 15);
+                bb.put(BASE64[last >>> 2]).put(BASE64[(last << 4) & 63]);
+                bb.put((byte) '\n');
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(format));
+        }
+    }
+
+    private static int byteAt(long hi, long lo, int index) {
+        long v = (index < 8) ? hi : lo;
+        return (int) (v >>> (56 - 8 * (index % 8))) & 0xff;
+    }
+
+    private static void putHex(ByteBuffer bb, long v, int digits) {
+        for (int shift = 4 * (digits - 1); shift >= 0; shift -= 4) {
+            bb.put(HEX[(int) (v >>> shift) & 15]);
+        }
+    }
+
+    /**
+     * Output format of the keys.
+     */
+    public enum Format {
+        /**
+         * 22-symbol URL-safe base64 text, one key per line.
+         */
+        BASE64(23),
+        /**
+         * Canonical UUID text, one key per line.
+         */
+        CANONICAL(37),
+        /**
+         * Raw 16 bytes per key, the canonical (RFC 4122) byte order.
+         */
+        BINARY(16);
+
+        final int width;
+
+        Format(int width) {
+            this.width = width;
+        }
+    }
+
+    private static final class Chunk {
+
+        final long number;
+        final int keys;
+        final ByteBuffer data;
+
+        Chunk(long number, int keys, ByteBuffer data) {
+            this.number = number;
+            this.keys = keys;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Throughput benchmark of the key generation hot paths, run by the BENCH
+ * action. Running the same jar on Java 8 and on Java 21 compares the base
+ * classes with the Java 21 variants of the multi-release jar.
+ *
+ * Each case runs on all threads for the warm-up period, and then for the
+ * measurement period. The results of the generation are folded into the
+ * per-thread checksum, so that the JIT does not drop the work.
+ *
+ * @author zinal
+ */
+public class KeyGenBenchmark {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final ThreadLocal<long[][]> BLOCKS = ThreadLocal.withInitial(
+            () -> new long[][]{new long[BLOCK_SIZE], new long[BLOCK_SIZE]});
+
+    private final Map<String, Case> cases = new LinkedHashMap<>();
+
+    /**
+     * @param uuidGen UUID key generator to be measured
+     * @param textGen Text key generator to be measured
+     */
+    public KeyGenBenchmark(UuidKeyGen uuidGen, TextKeyGen textGen) {
+        Instant instant = Instant.now();
+        long prefix = uuidGen.getPrefixValue(1);
+        cases.put("UuidKeyGen.nextValue()", random -> {
+            UUID v = uuidGen.nextValue();
+            return v.getMostSignificantBits() ^ v.getLeastSignificantBits();
+        });
+        cases.put("UuidKeyGen.nextValue(prefix, instant, random)", random -> {
+            UUID v = uuidGen.nextValue(prefix, instant, random);
+            return v.getMostSignificantBits() ^ v.getLeastSignificantBits();
+        });
+        cases.put("UuidKeyGen.nextValues(block of " + BLOCK_SIZE + ")", new Case() {
+            @Override
+            public int keysPerCall() {
+                return BLOCK_SIZE;
+            }
+
+            @Override
+            public long run(SplittableRandom random) {
+                long[][] arrays = BLOCKS.get();
+                uuidGen.nextValues(arrays[0], arrays[1], -1L, instant, random);
+                return arrays[0][BLOCK_SIZE - 1] ^ arrays[1][0];
+            }
+        });
+        cases.put("KeyBatch.apply(), " + KeyBatch.describe(),
+                batchCase(random -> KeyBatch.apply(randomBlock(random), BLOCKS.get()[1],
+                        BLOCK_SIZE, 0xFFFF00000000FFF0L, 0x123456780000800AL, -1L, 0L)));
+        cases.put("KeyBatch.applyScalar()",
+                batchCase(random -> KeyBatch.applyScalar(randomBlock(random), BLOCKS.get()[1],
+                        0, BLOCK_SIZE, 0xFFFF00000000FFF0L, 0x123456780000800AL, -1L, 0L)));
+        cases.put("TextKeyGen.nextValue()", random -> textGen.nextValue().hashCode());
+        cases.put("BaseKeyGen.reorder()", random -> BaseKeyGen.reorder(random.nextLong()));
+    }
+
+    /**
+     * @return The per-thread MSB block, refreshed with a few random values
+     */
+    private static long[] randomBlock(SplittableRandom random) {
+        long[] msb = BLOCKS.get()[0];
+        msb[random.nextInt(BLOCK_SIZE)] = random.nextLong();
+        return msb;
+    }
+
+    private static Case batchCase(Consumer<SplittableRandom> body) {
+        return new Case() {
+            @Override
+            public int keysPerCall() {
+                return BLOCK_SIZE;
+            }
+
+            @Override
+            public long run(SplittableRandom random) {
+                body.accept(random);
+                return BLOCKS.get()[0][0];
+            }
+        };
+    }
+
+    /**
+     * Runs all cases.
+     *
+     * @param threads Number of threads
+     * @param warmupMillis Warm-up period per case
+     * @param measureMillis Measurement period per case
+     * @return Result lines, one per case
+     * @throws InterruptedException if interrupted
+     */
+    public List<String> run(int threads, long warmupMillis, long measureMillis)
+            throws InterruptedException {
+        List<String> output = new ArrayList<>();
+        output.add("Random source: " + KeyRandom.describe()
+                + ", Java " + System.getProperty("java.version"));
+        for (Map.Entry<String, Case> me : cases.entrySet()) {
+            runCase(me.getValue(), threads, warmupMillis);
+            Result r = runCase(me.getValue(), threads, measureMillis);
+            output.add(String.format("%s: %.0f keys/sec on %d threads, %.0f per thread, checksum %x",
+                    me.getKey(), r.rate, threads, r.rate / threads, r.checksum));
+        }
+        return output;
+    }
+
+    private static Result runCase(Case c, int threads, long millis)
+            throws InterruptedException {
+        long[] counts = new long[threads];
+        long[] sums = new long[threads];
+        List<Thread> running = new ArrayList<>(threads);
+        long started = System.nanoTime();
+        long deadline = started + millis * 1000000L;
+        for (int t = 0; t < threads; ++t) {
+            final int index = t;
+            Thread th = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(index);
+                long count = 0L;
+                long sum = 0L;
+                int step = c.keysPerCall();
+                do {
+                    for (int i = 0; i < 64; ++i) {
+                        sum += c.run(random);
+                    }
+                    count += 64L * step;
+                } while (System.nanoTime() < deadline);
+                counts[index] = count;
+                sums[index] = sum;
+            }, "bench-" + t);
+            running.add(th);
+            th.start();
+        }
+        long total = 0L;
+        long checksum = 0L;
+        for (int t = 0; t < threads; ++t) {
+            running.get(t).join();
+            total += counts[t];
+            checksum ^= sums[t];
+        }
+        long elapsed = System.nanoTime() - started;
+        return new Result(total * 1e9 / elapsed, checksum);
+    }
+
+    /**
+     * Measured rate, with the checksum of the produced values which keeps
+     * the JIT from eliminating the measured work.
+     */
+    private static final class Result {
+
+        private final double rate;
+        private final long checksum;
+
+        private Result(double rate, long checksum) {
+            this.rate = rate;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Single measured operation.
+     */
+    private interface Case {
+
+        /**
+         * @param random Random stream of the thread
+         * @return Value derived from the result
+         */
+        long run(SplittableRandom random);
+
+        default int keysPerCall() {
+            return 1;
+        }
+    }
+}
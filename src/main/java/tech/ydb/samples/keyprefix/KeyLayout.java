@@ -0,0 +1,87 @@
+package tech.ydb.samples.keyprefix;
+
+/**
+ * Placement of the prefix and timestamp fields within the generated keys,
+ * and the way the shared prefixes are chosen. Selected by name, so that the
+ * layouts can be compared on the same workload.
+ *
+ * @author zinal
+ */
+public enum KeyLayout {
+
+    /**
+     * Random prefix, then the timestamp code, then the random bits. The
+     * original layout of {@link UuidKeyGen}.
+     */
+    PREFIX("prefix"),
+    /**
+     * UUIDv7-like: the timestamp code on top, then the prefix, then the random
+     * bits. The keys grow with time, so the writes go to the end of the key
+     * range, and a time range maps to a single key range.
+     */
+    TIME_FIRST("time-first"),
+    /**
+     * Prefix-first layout, with the prefix derived from the hash of the tenant
+     * key, so that all the keys of a tenant share one prefix.
+     */
+    TENANT_HASH("tenant-hash"),
+    /**
+     * Prefix-first layout, with the prefixes taken from the bit-reversed
+     * counter: the consecutive prefixes are as far apart as possible, and
+     * the whole prefix range is covered evenly in a round-robin way. The
+     * counter is shared, so the keys cannot be reproduced from the seed.
+     */
+    BIT_REVERSED("bit-reversed");
+
+    private final String name;
+
+    private KeyLayout(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return Layout name, as used in the configuration
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true, if the timestamp field is placed above the prefix
+     */
+    public boolean isTimeFirst() {
+        return this == TIME_FIRST;
+    }
+
+    /**
+     * @return true, if the keys depend only on the random stream used
+     */
+    public boolean isReproducible() {
+        return this != BIT_REVERSED;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Parses the layout name, accepting also the enum constant names and
+     * "v7" for {@link #TIME_FIRST}.
+     *
+     * @param v Layout name
+     * @return The layout
+     */
+    public static KeyLayout parse(String v) {
+        String x = v.trim().toLowerCase().replace('_', '-');
+        if ("v7".equals(x)) {
+            return TIME_FIRST;
+        }
+        for (KeyLayout kl : values()) {
+            if (kl.name.equals(x)) {
+                return kl;
+            }
+        }
+        throw new IllegalArgumentException("Unknown key layout: " + v);
+    }
+}
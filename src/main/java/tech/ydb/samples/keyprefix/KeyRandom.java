@@ -0,0 +1,54 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Source of the random bits for the key generators.
+ *
+ * Java 8 variant: the shared SecureRandom instance, read in blocks into the
+ * per-thread buffers, so that the lock of the SecureRandom is taken once per
+ * 64 random values instead of once per key. The Java 21 variant is in
+ * src/main/java21, and is picked from the multi-release jar.
+ *
+ * @author zinal
+ */
+final class KeyRandom {
+
+    private static final int BUFFER_BYTES = 512;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private KeyRandom() {
+    }
+
+    /**
+     * @return Description of the implementation, for the reports
+     */
+    static String describe() {
+        return "Java 8: shared SecureRandom, per-thread buffers";
+    }
+
+    /**
+     * @return Random 64-bit value
+     */
+    static long nextLong() {
+        return BUFFERS.get().nextLong();
+    }
+
+    private static final class Buffer {
+
+        final byte[] data = new byte[BUFFER_BYTES];
+        final ByteBuffer view = ByteBuffer.wrap(data);
+        int position = BUFFER_BYTES;
+
+        long nextLong() {
+            if (position == BUFFER_BYTES) {
+                BaseKeyGen.Holder.numberGenerator.nextBytes(data);
+                position = 0;
+            }
+            long v = view.getLong(position);
+            position += 8;
+            return v;
+        }
+    }
+}
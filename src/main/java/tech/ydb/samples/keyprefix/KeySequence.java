@@ -0,0 +1,99 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-(prefix, timestamp code) monotonic counters used by the sequential
+ * generation mode, similar to UUIDv7 "fixed bit-length dedicated counter"
+ * method.
+ *
+ * There is a single slot per prefix value, so threads using different prefixes
+ * never contend. A slot is replaced when the timestamp code changes, and the
+ * new counter starts at a random value within the lower half of the counter
+ * range, leaving the upper half as the room for growth.
+ *
+ * Counter values handed out within the single slot are unique across threads.
+ * When two timestamp codes alternate on the same prefix, the counter restarts
+ * at a new random position, so the uniqueness relies on the random bits which
+ * are kept outside of the counter. When the counter range is exhausted, the
+ * caller is expected to keep the random bits instead of the counter for the
+ * rest of the second, which gives the same properties as the random mode.
+ *
+ * @author zinal
+ */
+public class KeySequence {
+
+    private final int prefixBits;
+    private final int counterBits;
+    private final long counterLimit;
+    private final AtomicReferenceArray<Slot> slots;
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @param prefixBits Prefix size, in bits
+     * @param counterBits Counter size, in bits, 2 to 62
+     */
+    public KeySequence(int prefixBits, int counterBits) {
+        if (counterBits < 2 || counterBits > 62) {
+            throw new IllegalArgumentException("Unsupported counter length: " + counterBits);
+        }
+        this.prefixBits = prefixBits;
+        this.counterBits = counterBits;
+        this.counterLimit = 1L << counterBits;
+        this.slots = new AtomicReferenceArray<>(1 << prefixBits);
+    }
+
+    public int getCounterBits() {
+        return counterBits;
+    }
+
+    /**
+     * @return Number of values generated without the counter because of the
+     * counter overflow.
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Grabs the next counter value for the prefix and timestamp code.
+     *
+     * @param msb MSB value with the prefix bits already applied
+     * @param tsCode Timestamp code embedded into the value
+     * @return Counter value, or -1 if the counter cannot be used
+     */
+    public long next(long msb, long tsCode) {
+        int index = (int) (msb >>> (64 - prefixBits));
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot == null || slot.tsCode != tsCode) {
+                Slot fresh = new Slot(tsCode, ThreadLocalRandom.current()
+                        .nextLong(counterLimit >>> 1));
+                if (!slots.compareAndSet(index, slot, fresh)) {
+                    continue;
+                }
+                slot = fresh;
+            }
+            long v = slot.next.getAndIncrement();
+            if (v < counterLimit) {
+                return v;
+            }
+            fallbacks.increment();
+            return -1L;
+        }
+    }
+
+    private static final class Slot {
+
+        final long tsCode;
+        final AtomicLong next;
+
+        Slot(long tsCode, long start) {
+            this.tsCode = tsCode;
+            this.next = new AtomicLong(start);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator over the generated keys, in the style of the spliterators of
+ * {@link SplittableRandom#longs()}. Each split takes its own random
+ * substream, so the parallel pipelines generate the keys on all cores
+ * without the shared state. The "infinite" sequence is sized at
+ * {@link Long#MAX_VALUE} elements.
+ *
+ * @author zinal
+ */
+final class KeySpliterator<T> implements Spliterator<T> {
+
+    private final Function<SplittableRandom, T> generator;
+    private final SplittableRandom random;
+    private long index;
+    private final long fence;
+
+    KeySpliterator(Function<SplittableRandom, T> generator, SplittableRandom random,
+            long index, long fence) {
+        this.generator = generator;
+        this.random = random;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public KeySpliterator<T> trySplit() {
+        long i = index;
+        long m = (i + fence) >>> 1;
+        if (m <= i) {
+            return null;
+        }
+        index = m;
+        return new KeySpliterator<>(generator, random.split(), i, m);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index >= fence) {
+            return false;
+        }
+        action.accept(generator.apply(random));
+        ++index;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        long i = index;
+        long f = fence;
+        index = f;
+        for (; i < f; ++i) {
+            action.accept(generator.apply(random));
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.SIZED | Spliterator.SUBSIZED
+                | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+}
@@ -0,0 +1,239 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency and row count statistics for a single kind of
+ * operation.
+ *
+ * Latencies are collected into a log-linear histogram with microsecond
+ * resolution: each power of two range is split into 8 sub-buckets, which gives
+ * about 12% precision for the reported percentiles.
+ *
+ * @author zinal
+ */
+public class LatencyStats {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Register the single completed operation.
+     *
+     * @param nanos Operation duration, in nanoseconds
+     * @param rowCount Number of rows processed by the operation
+     */
+    public void record(long nanos, long rowCount) {
+        if (nanos < 0L) {
+            nanos = 0L;
+        }
+        buckets.incrementAndGet(bucketOf(nanos / 1000L));
+        count.increment();
+        rows.add(rowCount);
+        totalNanos.add(nanos);
+        long prev = maxNanos.get();
+        while (nanos > prev && !maxNanos.compareAndSet(prev, nanos)) {
+            prev = maxNanos.get();
+        }
+    }
+
+    /**
+     * Add the values collected by other instance to the current one.
+     *
+     * @param other Statistics to be merged in
+     */
+    public void merge(LatencyStats other) {
+        for (int i = 0; i < BUCKETS; ++i) {
+            long v = other.buckets.get(i);
+            if (v != 0L) {
+                buckets.addAndGet(i, v);
+            }
+        }
+        count.add(other.count.sum());
+        rows.add(other.rows.sum());
+        totalNanos.add(other.totalNanos.sum());
+        long nanos = other.maxNanos.get();
+        long prev = maxNanos.get();
+        while (nanos > prev && !maxNanos.compareAndSet(prev, nanos)) {
+            prev = maxNanos.get();
+        }
+    }
+
+    /**
+     * Writes the collected values in the compact binary form, skipping the
+     * empty histogram buckets.
+     *
+     * @param out Output stream
+     * @throws IOException on write error
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeLong(count.sum());
+        out.writeLong(rows.sum());
+        out.writeLong(totalNanos.sum());
+        out.writeLong(maxNanos.get());
+        int used = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            if (buckets.get(i) != 0L) {
+                ++used;
+            }
+        }
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; ++i) {
+            long v = buckets.get(i);
+            if (v != 0L) {
+                out.writeInt(i);
+                out.writeLong(v);
+            }
+        }
+    }
+
+    /**
+     * Reads the values written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in Input stream
+     * @return Statistics read
+     * @throws IOException on read error or illegal data
+     */
+    public static LatencyStats readFrom(DataInput in) throws IOException {
+        LatencyStats ls = new LatencyStats(in.readUTF());
+        ls.count.add(in.readLong());
+        ls.rows.add(in.readLong());
+        ls.totalNanos.add(in.readLong());
+        ls.maxNanos.set(in.readLong());
+        int used = in.readInt();
+        for (int k = 0; k < used; ++k) {
+            int i = in.readInt();
+            if (i < 0 || i >= BUCKETS) {
+                throw new IOException("Illegal histogram bucket " + i);
+            }
+            ls.buckets.set(i, in.readLong());
+        }
+        return ls;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return Average operation latency in milliseconds
+     */
+    public double getAverageMillis() {
+        long c = getCount();
+        if (c == 0L) {
+            return 0.0;
+        }
+        return ((double) getTotalNanos()) / ((double) c) / 1000000.0;
+    }
+
+    /**
+     * @return Rows processed per second of operation time (single worker).
+     */
+    public double getRowsPerSecond() {
+        long nanos = getTotalNanos();
+        if (nanos == 0L) {
+            return 0.0;
+        }
+        return ((double) getRows()) * 1000000000.0 / ((double) nanos);
+    }
+
+    /**
+     * Computes the approximate latency percentile.
+     *
+     * @param pct Percentile, 0 to 100
+     * @return Latency upper bound for the percentile specified, milliseconds
+     */
+    public double getPercentileMillis(double pct) {
+        long total = 0L;
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i) {
+            copy[i] = buckets.get(i);
+            total += copy[i];
+        }
+        if (total == 0L) {
+            return 0.0;
+        }
+        long threshold = (long) Math.ceil(total * pct / 100.0);
+        if (threshold < 1L) {
+            threshold = 1L;
+        }
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += copy[i];
+            if (seen >= threshold) {
+                return ((double) bucketUpperMicros(i)) / 1000.0;
+            }
+        }
+        return ((double) getMaxNanos()) / 1000000.0;
+    }
+
+    /**
+     * @return Single line summary suitable for logging.
+     */
+    public String format() {
+        return String.format("%s: %d ops, %d rows, avg %.2f ms, "
+                + "p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f rows/sec",
+                name, getCount(), getRows(), getAverageMillis(),
+                getPercentileMillis(50.0), getPercentileMillis(95.0),
+                getPercentileMillis(99.0), ((double) getMaxNanos()) / 1000000.0,
+                getRowsPerSecond());
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = msb - SUB_BITS;
+        int sub = (int) (micros >>> shift) & (SUB_COUNT - 1);
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    static long bucketUpperMicros(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long sub = bucket % SUB_COUNT;
+        return ((SUB_COUNT + sub + 1L) << shift) - 1L;
+    }
+}
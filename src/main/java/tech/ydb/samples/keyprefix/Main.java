@@ -1,35 +1,55 @@
 package tech.ydb.samples.keyprefix;
 
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.apache.commons.text.StringSubstitutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,29 +67,152 @@ public class Main implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
 
+    /**
+     * Number of rows per table written in a single FILL step.
+     */
+    static final int FILL_BATCH_ROWS = 200;
+
+    /**
+     * Span of the query timestamps within the TEST day, in seconds.
+     */
+    static final long TEST_DAY_SECONDS = 60L * 60L * 23L;
+
     private final Config config;
     private final HikariDataSource ds;
     private final UuidKeyGen keyGen;
     private final ArrayList<String> ballastLines;
     private final ZoneId timeZone;
+    private final WorkloadRandom workload;
     private final AtomicInteger tasksRunning = new AtomicInteger();
     private final AtomicLong itemsCompleted = new AtomicLong();
     private final AtomicLong itemsExpected = new AtomicLong();
     private final AtomicLong rowsCompleted = new AtomicLong();
+    private final EnumMap<WorkloadMix.Op, LatencyStats> opStats = new EnumMap<>(WorkloadMix.Op.class);
+    private final TableSet tables;
+    private final IdPool[] idPools;
+    private final IdPool[] collectionPools;
+    private final WorkloadMix workloadMix;
+    private final AccessDistribution timeDistribution;
+    private final AccessDistribution keyDistribution;
+    private final RowCache<CachedRow> mainCache;
+    private final RowCache<CachedRow> subCache;
+    private final ResultStats mainResultStats = new ResultStats("INDEX main query");
+    private final ResultStats subResultStats = new ResultStats("INDEX sub query");
+    private final Map<String, BatchStats> batchStats = new LinkedHashMap<>();
+    private ShardEstimator shardEstimator;
+    private List<LocalDate> fillDays;
+    private final LatencyStats fillStats = new LatencyStats("FILL step");
+    private final LatencyStats backgroundStats = new LatencyStats("Background FILL step");
+    private RateLimiter fillLimiter;
+    private ExecutorService rangeExecutor;
+    private WorkerGroup group;
+    private FillJournal journal;
+    // failure of the FILLTEST background writer, which aborts the TEST
+    private volatile Throwable writerFailure;
+    private final ConcurrentLinkedQueue<FillTask> fillRetries = new ConcurrentLinkedQueue<>();
 
     public Main(Config sc) {
         this.config = sc;
         this.ds = createDataSource(sc);
-        this.keyGen = new UuidKeyGen();
+        this.keyGen = new UuidKeyGen(sc.getPrefixBits(), sc.getTimestampBits(),
+                sc.getTimestampUnit(), sc.isUuidSequential(), sc.getKeyLayout());
+        this.keyGen.setAffinitySalt(sc.getAffinitySalt());
+        if (sc.getRotationPrefixes() > 0 && sc.isUuidAffinity()) {
+            throw new IllegalArgumentException("gen.uuid.rotation.prefixes cannot be used "
+                    + "with gen.uuid.affinity: the rotation would spread the collection "
+                    + "rows over the prefixes");
+        }
+        if (sc.getRotationPrefixes() > 0 && sc.getRotationSeconds() < FILL_BATCH_ROWS) {
+            throw new IllegalArgumentException("gen.uuid.rotation.seconds must be at least "
+                    + FILL_BATCH_ROWS + ", so that the FILL batch fits into the window");
+        }
+        this.keyGen.setRotation(sc.getRotationPrefixes(),
+                Duration.ofSeconds(sc.getRotationSeconds()));
         this.ballastLines = readBallastLines(sc.getBallastFile());
         this.timeZone = ZoneId.of("Europe/Moscow");
+        this.workload = new WorkloadRandom(sc.getSeed());
+        this.tables = new TableSet(sc.getTablesTemplate(), sc.getTablesCount());
+        // separate key pools per table pair, as the keys are table-specific
+        this.idPools = new IdPool[tables.size()];
+        this.collectionPools = new IdPool[tables.size()];
+        for (int i = 0; i < tables.size(); ++i) {
+            idPools[i] = new IdPool(16);
+            collectionPools[i] = new IdPool(16);
+        }
+        this.workloadMix = (sc.getTestMode() == TestMode.MIX)
+                ? WorkloadMix.parse(sc.getTestMix()) : null;
+        this.timeDistribution = AccessDistribution.parse(sc.getTestTimeDistribution(),
+                TEST_DAY_SECONDS);
+        this.keyDistribution = AccessDistribution.parse(sc.getTestKeyDistribution(),
+                idPools[0].capacity());
+        if (sc.getTestCacheBytes() > 0L) {
+            // the budget is split evenly between the tables
+            this.mainCache = new RowCache<>(sc.getTestCacheBytes() / 2L, 4, CachedRow::weight);
+            this.subCache = new RowCache<>(sc.getTestCacheBytes() / 2L, 4, CachedRow::weight);
+        } else {
+            this.mainCache = null;
+            this.subCache = null;
+        }
+        for (WorkloadMix.Op op : WorkloadMix.Op.values()) {
+            opStats.put(op, new LatencyStats(op.name()));
+        }
+        LOG.info("Key layout {}: prefix {} bits, timestamp {} bits of {}, wraps around every {} days",
+                keyGen.getLayout(), keyGen.getPrefixBits(), keyGen.getTimestampBits(),
+                keyGen.getTimestampUnit(), keyGen.getWrapAroundPeriod().toDays());
     }
 
     @Override
     public void close() {
+        if (group != null) {
+            try {
+                group.close();
+            } catch (IOException ix) {
+                LOG.warn("Failed to release the worker lease", ix);
+            }
+            group = null;
+        }
         ds.close();
     }
 
+    /**
+     * Joins the group of the client processes sharing the workload, if
+     * configured, and waits for the other processes to start.
+     */
+    private void joinGroup(Action action) throws IOException {
+        if (config.getDistWorkers() <= 1) {
+            return;
+        }
+        group = new WorkerGroup(Paths.get(config.getDistDir()),
+                config.getDistRun() + "-" + action, config.getDistWorkers());
+        LOG.info("Joined as worker {} of {}, waiting for the others...",
+                group.getIndex(), group.getWorkers());
+        group.awaitStart(Duration.ofSeconds(config.getDistTimeout()));
+        LOG.info("All {} workers started.", group.getWorkers());
+    }
+
+    /**
+     * Publishes the local statistics to the worker group. The coordinator
+     * then merges the statistics of all workers and reports them.
+     */
+    private void reportGroupStats(List<LatencyStats> local) throws IOException {
+        if (group == null) {
+            return;
+        }
+        group.publish(local);
+        if (!group.isCoordinator()) {
+            LOG.info("Statistics published to the coordinator.");
+            return;
+        }
+        List<LatencyStats> merged = WorkerGroup.merge(
+                group.collect(Duration.ofSeconds(config.getDistTimeout())));
+        LOG.info("Merged results of {} workers:", group.getWorkers());
+        for (LatencyStats ls : merged) {
+            if (ls.getCount() > 0L) {
+                LOG.info("{}", ls.format());
+            }
+        }
+    }
+
     public void actionInit() throws Exception {
         LOG.info("Init started...");
         runDdlScript();
@@ -79,57 +222,462 @@ public class Main implements AutoCloseable {
     public void actionClean() throws Exception {
         LOG.info("Cleanup started...");
         dropTables();
+        deleteJournals();
         LOG.info("Cleanup successfull!");
     }
 
     public void actionFill() throws Exception {
+        joinGroup(Action.FILL);
+        openJournal();
+        fillLimiter = newRateLimiter(config.getGeneratorRate());
         ExecutorService es = Executors.newFixedThreadPool(config.getGeneratorThreads());
         try {
-            LOG.info("Submitting fill tasks with UUIDv8={} ...", config.isUuidV8());
+            LOG.info("Submitting fill tasks with UUIDv8={}, sequential={}, affinity={} for {} table pair(s)...",
+                    config.isUuidV8(), keyGen.isSequential(), config.isUuidAffinity(), tables.size());
             List<Future<?>> tasks = new ArrayList<Future<?>>();
             itemsCompleted.set(0L);
             rowsCompleted.set(0L);
-            // one task per date
+            // one task per date and table pair, split between the workers
+            long item = 0L;
+            long expected = 0L;
+            long skipped = 0L;
             LocalDate current = config.getGeneratorStart();
             while (!current.isAfter(config.getGeneratorFinish())) {
                 LocalDate dt = current;
-                Future<?> task = es.submit(() -> fillDate(dt));
-                tasks.add(task);
+                for (TableSet.Pair tp : tables.getPairs()) {
+                    if (group == null || group.owns(item)) {
+                        int done = (journal == null) ? 0
+                                : journal.countDone(dt, tp.getIndex(), config.getGeneratorScale());
+                        skipped += done;
+                        if (done < config.getGeneratorScale()) {
+                            expected += config.getGeneratorScale() - done;
+                            Future<?> task = es.submit(() -> fillDate(tp, dt));
+                            tasks.add(task);
+                        }
+                    }
+                    ++item;
+                }
                 current = current.plusDays(1);
             }
-            itemsExpected.set(1L * tasks.size()
-                    * 1L * config.getGeneratorScale());
-            LOG.info("Fill started...");
+            itemsExpected.set(expected);
+            if (skipped > 0L) {
+                LOG.info("Resuming: {} steps already completed, {} remaining", skipped, expected);
+            }
+            LOG.info("Fill started, batches {}...",
+                    config.isSortBatches() ? "sorted in key order" : "in generation order");
             waitForCompletion(tasks);
+            retryFailedDays(es);
+            if (keyGen.isSequential()) {
+                LOG.info("Sequential counter overflows: {}",
+                        keyGen.getSequence().getFallbackCount());
+            }
+            // all steps are done, the next FILL starts over
+            if (journal != null) {
+                closeJournal();
+                Files.deleteIfExists(journalPath());
+            }
             LOG.info("Fill successful!");
+            LOG.info("{}", fillStats.format());
+            reportGroupStats(Collections.singletonList(fillStats));
+        } finally {
+            shutdownExecutor(es);
+            closeJournal();
+            fillLimiter = null;
+        }
+    }
+
+    /**
+     * @param rate Target rows per second for this process, or 0 for no limit
+     * @return Rate limiter shared by the generator threads, or null
+     */
+    private RateLimiter newRateLimiter(double rate) {
+        if (rate <= 0.0) {
+            return null;
+        }
+        if (group != null) {
+            // the configured rate is the total for all workers
+            rate = rate / group.getWorkers();
+        }
+        LOG.info("Limiting the write rate to {} rows/sec", String.format("%.1f", rate));
+        return new RateLimiter(rate, config.getGeneratorThreads(), 100L);
+    }
+
+    /**
+     * Runs TEST while the background FILL writes new rows for the test day at
+     * the fixed rate, so that the reads are measured under the concurrent
+     * write pressure and the resulting partition splits.
+     */
+    public void actionFillTest() throws Exception {
+        double rate = (config.getTestBackgroundRate() > 0.0)
+                ? config.getTestBackgroundRate() : config.getGeneratorRate();
+        if (rate <= 0.0) {
+            throw new IllegalStateException("FILLTEST requires test.background.rate or gen.rate");
+        }
+        RateLimiter limiter = new RateLimiter(rate, config.getGeneratorThreads(), 100L);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicLong nextStep = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        ExecutorService bg = Executors.newFixedThreadPool(config.getGeneratorThreads());
+        List<Future<?>> tasks = new ArrayList<>();
+        Instant startedAt = Instant.now();
+        writerFailure = null;
+        try {
+            LOG.info("Starting background FILL at {} rows/sec...", rate);
+            for (int i = 0; i < config.getGeneratorThreads(); ++i) {
+                tasks.add(bg.submit(() -> backgroundFill(limiter, stop, nextStep, written)));
+            }
+            actionTest();
+        } finally {
+            stop.set(true);
+            shutdownExecutor(bg);
+        }
+        checkCompletion(tasks);
+        reportRate("Background FILL", written.get(), startedAt);
+        LOG.info("{}", backgroundStats.format());
+    }
+
+    private void backgroundFill(RateLimiter limiter, AtomicBoolean stop,
+            AtomicLong nextStep, AtomicLong written) {
+        LocalDate testDay = config.getTestDay();
+        try {
+            while (!stop.get()) {
+                long step = nextStep.getAndIncrement();
+                TableSet.Pair tp = tables.get((int) (step % tables.size()));
+                // step numbers past gen.scale produce new rows for the day
+                int dayStep = config.getGeneratorScale() + (int) (step / tables.size());
+                List<DataEntry> entries = newStepEntries(testDay,
+                        workload.forStep(testDay, dayStep, tp.getIndex()));
+                limiter.acquire(2 * entries.size());
+                if (stop.get()) {
+                    break;
+                }
+                long started = System.nanoTime();
+                runWithRetry(false, (con) -> upsertEntries(con, tp, entries));
+                backgroundStats.record(System.nanoTime() - started, 2 * entries.size());
+                written.addAndGet(2 * entries.size());
+            }
+        } catch (InterruptedException ix) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            // the reads are no longer measured under the configured write rate
+            LOG.error("Background FILL writer failed, aborting the test", ex);
+            if (writerFailure == null) {
+                writerFailure = ex;
+            }
+            stop.set(true);
+        }
+    }
+
+    private void openJournal() throws IOException {
+        if (config.getGeneratorJournal() == null) {
+            return;
+        }
+        if (!workload.isSeeded()) {
+            // the resumed steps would generate different rows
+            throw new IllegalStateException("gen.journal requires gen.seed, "
+                    + "so that the resumed FILL generates the same rows");
+        }
+        Path path = journalPath();
+        journal = new FillJournal(path, config.getSeed(),
+                1000L * config.getGeneratorJournalFlush());
+        LOG.info("Using FILL journal {}", path);
+    }
+
+    private Path journalPath() {
+        String fname = config.getGeneratorJournal();
+        if (group != null) {
+            // the work split is stable for the worker number
+            fname = fname + "." + group.getIndex();
+        }
+        return Paths.get(fname);
+    }
+
+    /**
+     * Removes the FILL journals along with the tables, including the ones
+     * of all the workers.
+     */
+    private void deleteJournals() throws IOException {
+        if (config.getGeneratorJournal() == null) {
+            return;
+        }
+        String fname = config.getGeneratorJournal();
+        Files.deleteIfExists(Paths.get(fname));
+        for (int i = 0; i < config.getDistWorkers(); ++i) {
+            Files.deleteIfExists(Paths.get(fname + "." + i));
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ix) {
+                LOG.warn("Failed to flush the FILL journal", ix);
+            }
+            journal = null;
+        }
+    }
+
+    /**
+     * Re-runs the failed day tasks from the retry queue, up to the configured
+     * number of rounds. The completed steps of the failed days are skipped.
+     */
+    private void retryFailedDays(ExecutorService es) {
+        for (int round = 1; round <= config.getGeneratorRetryRounds(); ++round) {
+            List<FillTask> failed = new ArrayList<>();
+            FillTask ft;
+            while ((ft = fillRetries.poll()) != null) {
+                failed.add(ft);
+            }
+            if (failed.isEmpty()) {
+                return;
+            }
+            LOG.info("Retry round {}: {} failed day(s)", round, failed.size());
+            List<Future<?>> tasks = new ArrayList<>();
+            for (FillTask t : failed) {
+                tasks.add(es.submit(() -> fillDate(t.tables, t.day)));
+            }
+            waitForCompletion(tasks);
+        }
+        if (!fillRetries.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (FillTask t : fillRetries) {
+                sb.append(' ').append(t.day).append('@').append(t.tables);
+            }
+            throw new IllegalStateException("FILL incomplete, "
+                    + fillRetries.size() + " day(s) failed:" + sb);
+        }
+    }
+
+    public void actionExport() throws Exception {
+        Path dir = Paths.get(config.getExportDir());
+        Files.createDirectories(dir);
+        List<LocalDate> days = listGeneratorDays();
+        int shards = Math.max(1, Math.min(config.getExportShards(), days.size()));
+        ExecutorService es = Executors.newFixedThreadPool(config.getGeneratorThreads());
+        try {
+            LOG.info("Submitting export tasks for {} shards with UUIDv8={} ...",
+                    shards, config.isUuidV8());
+            List<Future<?>> tasks = new ArrayList<Future<?>>();
+            itemsCompleted.set(0L);
+            rowsCompleted.set(0L);
+            itemsExpected.set(1L * days.size() * 1L * config.getGeneratorScale());
+            Instant startedAt = Instant.now();
+            for (int shard = 0; shard < shards; ++shard) {
+                int current = shard;
+                tasks.add(es.submit(() -> exportShard(dir, current, shards, days)));
+            }
+            LOG.info("Export started...");
+            waitForCompletion(tasks);
+            checkCompletion(tasks);
+            reportRate("Export", rowsCompleted.get(), startedAt);
+        } finally {
+            shutdownExecutor(es);
+        }
+    }
+
+    public void actionLoad() throws Exception {
+        List<Path> shards = DatasetFiles.listShards(Paths.get(config.getExportDir()));
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("No dataset files found in " + config.getExportDir());
+        }
+        long batches = 0L;
+        for (Path shard : shards) {
+            try (DatasetFiles.Reader reader = new DatasetFiles.Reader(shard)) {
+                batches += reader.getBatches();
+            }
+        }
+        ExecutorService es = Executors.newFixedThreadPool(config.getGeneratorThreads());
+        try {
+            LOG.info("Submitting load tasks for {} shards...", shards.size());
+            List<Future<?>> tasks = new ArrayList<Future<?>>();
+            itemsCompleted.set(0L);
+            rowsCompleted.set(0L);
+            itemsExpected.set(batches);
+            Instant startedAt = Instant.now();
+            for (Path shard : shards) {
+                tasks.add(es.submit(() -> loadShard(shard)));
+            }
+            LOG.info("Load started...");
+            waitForCompletion(tasks);
+            checkCompletion(tasks);
+            reportRate("Load", rowsCompleted.get(), startedAt);
         } finally {
             shutdownExecutor(es);
         }
     }
 
+    private void exportShard(Path dir, int shard, int shards, List<LocalDate> days) {
+        tasksRunning.incrementAndGet();
+        try (DatasetFiles.Writer writer = new DatasetFiles.Writer(
+                DatasetFiles.shardPath(dir, shard), FILL_BATCH_ROWS)) {
+            for (int ix = shard; ix < days.size(); ix += shards) {
+                LocalDate dt = days.get(ix);
+                for (int i = 0; i < config.getGeneratorScale(); ++i) {
+                    List<DataEntry> entries = newStepEntries(dt, workload.forStep(dt, i));
+                    writer.write(entries);
+                    itemsCompleted.incrementAndGet();
+                    rowsCompleted.addAndGet(2 * entries.size());
+                }
+            }
+        } catch (IOException ix) {
+            throw new RuntimeException("Failed to export shard " + shard, ix);
+        } finally {
+            tasksRunning.decrementAndGet();
+        }
+    }
+
+    private void loadShard(Path shard) {
+        tasksRunning.incrementAndGet();
+        try (DatasetFiles.Reader reader = new DatasetFiles.Reader(shard)) {
+            List<DataEntry> entries;
+            while ((entries = reader.nextBatch()) != null) {
+                List<DataEntry> batch = entries;
+                runWithRetry(false, (con) -> fillDateStep(con, tables.get(0), batch));
+                itemsCompleted.incrementAndGet();
+                rowsCompleted.addAndGet(2 * batch.size());
+            }
+        } catch (IOException ix) {
+            throw new RuntimeException("Failed to load shard " + shard, ix);
+        } finally {
+            tasksRunning.decrementAndGet();
+        }
+    }
+
+    private List<LocalDate> listGeneratorDays() {
+        List<LocalDate> days = new ArrayList<>();
+        LocalDate current = config.getGeneratorStart();
+        while (!current.isAfter(config.getGeneratorFinish())) {
+            days.add(current);
+            current = current.plusDays(1);
+        }
+        return days;
+    }
+
+    private static void checkCompletion(List<Future<?>> tasks) throws Exception {
+        for (Future<?> f : tasks) {
+            try {
+                f.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                throw (cause instanceof Exception) ? (Exception) cause : ex;
+            }
+        }
+    }
+
+    private static void reportRate(String what, long rows, Instant startedAt) {
+        long elapsedMillis = Math.max(1L, startedAt.until(Instant.now(), ChronoUnit.MILLIS));
+        LOG.info("{} successful, {} rows in {} seconds ({} rows/sec)!", what, rows,
+                elapsedMillis / 1000L, rows * 1000L / elapsedMillis);
+    }
+
     public void actionTest() throws Exception {
+        if (config.getTestMode() == TestMode.BATCH) {
+            prepareBatchLookups();
+        }
+        joinGroup(Action.TEST);
+        // the iteration budget is split between the workers
+        int iterations = (group == null) ? config.getTestIterations()
+                : (int) group.shareOf(config.getTestIterations());
+        int firstWorker = (group == null) ? 0 : group.getIndex() * config.getTestThreads();
         ExecutorService es = Executors.newFixedThreadPool(config.getTestThreads());
+        if (needsRangeReads(config, workloadMix)) {
+            if (!config.isUuidV8()) {
+                LOG.warn("Key range reads require the data generated with gen.uuid.v8=true");
+            }
+            rangeExecutor = Executors.newFixedThreadPool(config.getTestRangeThreads());
+        }
         try {
-            LOG.info("Submitting test tasks...");
+            LOG.info("Submitting test tasks in {} mode...", config.getTestMode());
+            if (workloadMix != null) {
+                LOG.info("Workload mix: {}", workloadMix);
+            }
+            LOG.info("Access distributions: time {}, keys {}",
+                    config.getTestTimeDistribution(), config.getTestKeyDistribution());
             ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
             itemsCompleted.set(0L);
             rowsCompleted.set(0L);
-            itemsExpected.set(1L * config.getTestThreads()
-                    * 1L * config.getTestIterations());
+            itemsExpected.set(1L * config.getTestThreads() * 1L * iterations);
             Instant startedAt = Instant.now();
             LocalDate testDay = config.getTestDay();
             for (int i = 0; i < config.getTestThreads(); ++i) {
-                Future<?> task = es.submit(() -> testTask(testDay));
+                int worker = firstWorker + i;
+                Future<?> task = es.submit(() -> testTask(testDay, worker, iterations));
                 tasks.add(task);
             }
             LOG.info("Test started...");
             waitForCompletion(tasks);
+            if (writerFailure != null) {
+                throw new IllegalStateException("Test aborted, background FILL failed",
+                        writerFailure);
+            }
             long elapsedSeconds = startedAt.until(Instant.now(), ChronoUnit.SECONDS);
             LOG.info("Test successful, total {} iterations in {} seconds!",
                     itemsCompleted.get(), elapsedSeconds);
+            reportTestStats();
+            reportGroupStats(collectTestStats());
         } finally {
             shutdownExecutor(es);
+            if (rangeExecutor != null) {
+                shutdownExecutor(rangeExecutor);
+                rangeExecutor = null;
+            }
+        }
+    }
+
+    private static boolean needsRangeReads(Config sc, WorkloadMix mix) {
+        switch (sc.getTestMode()) {
+            case PKRANGE:
+            case BOTH:
+                return true;
+            case MIX:
+                return mix == null || mix.contains(WorkloadMix.Op.PKRANGE);
+            default:
+                return false;
+        }
+    }
+
+    private void reportTestStats() {
+        for (LatencyStats stats : opStats.values()) {
+            if (stats.getCount() > 0L) {
+                LOG.info("{}", stats.format());
+            }
+        }
+        LatencyStats indexStats = opStats.get(WorkloadMix.Op.INDEX);
+        LatencyStats rangeStats = opStats.get(WorkloadMix.Op.PKRANGE);
+        if (indexStats.getCount() > 0L && rangeStats.getCount() > 0L
+                && rangeStats.getAverageMillis() > 0.0) {
+            LOG.info("Key range vs index: latency ratio {}, throughput ratio {}",
+                    String.format("%.2f", rangeStats.getAverageMillis() / indexStats.getAverageMillis()),
+                    String.format("%.2f", rangeStats.getRowsPerSecond() / indexStats.getRowsPerSecond()));
+        }
+        for (ResultStats rs : new ResultStats[]{mainResultStats, subResultStats}) {
+            if (rs.getTotal().getCount() > 0L) {
+                LOG.info("{}", rs.format(config.getTestRows()));
+            }
+        }
+        for (BatchStats bs : batchStats.values()) {
+            if (bs.latency.getCount() > 0L) {
+                LOG.info("{}, average shards per batch {}", bs.latency.format(),
+                        String.format("%.2f", ((double) bs.shards.get()) / bs.latency.getCount()));
+            }
+        }
+        if (mainCache != null) {
+            LOG.info("{}", mainCache.format("main"));
+            LOG.info("{}", subCache.format("sub"));
+        }
+    }
+
+    private List<LatencyStats> collectTestStats() {
+        List<LatencyStats> output = new ArrayList<>(opStats.values());
+        output.add(mainResultStats.getFirstRow());
+        output.add(mainResultStats.getTotal());
+        output.add(subResultStats.getFirstRow());
+        output.add(subResultStats.getTotal());
+        for (BatchStats bs : batchStats.values()) {
+            output.add(bs.latency);
         }
+        return output;
     }
 
     private void shutdownExecutor(ExecutorService es) {
@@ -141,15 +689,100 @@ public class Main implements AutoCloseable {
         }
     }
 
-    public void actionPrint() {
-        for (int i = 0; i < 100; ++i) {
-            System.out.println(newId(keyGen.nextPrefix(), Instant.now()));
+    /**
+     * Uniqueness stress test of the configured key layout, see
+     * {@link CollisionHarness}. Does not use the database.
+     */
+    public void actionCollide() throws Exception {
+        CollisionHarness.Scope scope = config.getCollideScope();
+        Instant instant = config.getGeneratorStart()
+                .atStartOfDay(timeZone).toInstant();
+        long prefix = keyGen.getPrefixValue(0);
+        int randomBits = CollisionHarness.randomBitsOf(keyGen, scope);
+        CollisionHarness harness = new CollisionHarness(
+                CollisionHarness.sourceOf(keyGen, scope, instant, prefix),
+                randomBits, config.getCollideThreads(), config.getCollideBloomBits());
+        long seed = (config.getSeed() == null) ? System.nanoTime() : config.getSeed();
+        LOG.info("Checking {} keys in scope {}, prefix bits {}, timestamp bits {}...",
+                config.getCollideKeys(), scope, keyGen.getPrefixBits(),
+                keyGen.getTimestampBits());
+        CollisionHarness.Result result = harness.run(config.getCollideKeys(), seed);
+        LOG.info("{}", result.format());
+    }
+
+    /**
+     * Models the partition load of the key layouts on the FILL-shaped
+     * workload, see {@link PartitionAnalyzer}. Does not use the database.
+     */
+    public void actionAnalyze() throws Exception {
+        PartitionAnalyzer analyzer = new PartitionAnalyzer(modelShards(),
+                FILL_BATCH_ROWS, config.getAnalyzeWindowSeconds());
+        Instant from = (config.getGeneratorStart() == null) ? Instant.now()
+                : config.getGeneratorStart().atStartOfDay(timeZone).toInstant();
+        long seed = (config.getSeed() == null) ? System.nanoTime() : config.getSeed();
+        // with the rotation configured, each layout is modeled with and without it
+        int[] rotations = (config.getRotationPrefixes() > 0)
+                ? new int[]{0, config.getRotationPrefixes()} : new int[]{0};
+        for (KeyLayout layout : config.getAnalyzeLayouts()) {
+            for (int rotation : rotations) {
+                if (rotation > 0 && layout == KeyLayout.TENANT_HASH) {
+                    // tenant prefixes are never rotated
+                    continue;
+                }
+                UuidKeyGen gen = new UuidKeyGen(config.getPrefixBits(), config.getTimestampBits(),
+                        config.getTimestampUnit(), false, layout);
+                gen.setAffinitySalt(config.getAffinitySalt());
+                gen.setRotation(rotation, Duration.ofSeconds(config.getRotationSeconds()));
+                PartitionAnalyzer.Result result = analyzer.run(gen, random -> newPrefix(gen, random),
+                        from, config.getAnalyzeSeconds(), config.getAnalyzeBatches(), seed);
+                LOG.info("{}", result.format());
+            }
+        }
+    }
+
+    /**
+     * Key generation throughput benchmark, see {@link KeyGenBenchmark}.
+     * Does not use the database.
+     */
+    public void actionBench() throws Exception {
+        KeyGenBenchmark bench = new KeyGenBenchmark(keyGen, new TextKeyGen(
+                config.getPrefixBits(), config.getTimestampBits(), config.getTimestampUnit()));
+        long millis = 1000L * config.getBenchSeconds();
+        for (String line : bench.run(config.getBenchThreads(), millis / 2L, millis)) {
+            LOG.info("{}", line);
+        }
+    }
+
+    /**
+     * Streams the generated keys to the file or stdout, see
+     * {@link KeyExporter}. Does not use the database.
+     */
+    public void actionPrint() throws Exception {
+        KeyExporter exporter = new KeyExporter(keyGen, config.getPrintFormat(),
+                config.getPrintThreads(), config.isPrintOrdered(), config.getPrintRate());
+        // null seeds the chunks from SecureRandom
+        Long seed = config.getSeed();
+        // null for the current time
+        Instant instant = config.getPrintInstant();
+        Instant startedAt = Instant.now();
+        long keys;
+        if (config.getPrintFile() == null) {
+            // not closed, to keep stdout open
+            FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel();
+            keys = exporter.export(out, config.getPrintCount(), seed, instant);
+        } else {
+            try (FileChannel out = FileChannel.open(Paths.get(config.getPrintFile()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                keys = exporter.export(out, config.getPrintCount(), seed, instant);
+            }
         }
+        reportRate("Print", keys, startedAt);
     }
 
     public static void main(String[] args) {
         if (args.length != 2) {
-            LOG.info("Two arguments are expected: config-file.xml { INIT | FILL | TEST | CLEAN | PRINT | LAYOUT | ORDER }");
+            LOG.info("Two arguments are expected: config-file.xml { INIT | FILL | TEST | CLEAN | PRINT | LAYOUT | ORDER | EXPORT | LOAD | FILLTEST | COLLIDE | BENCH | ANALYZE }");
             System.exit(2);
         }
         try {
@@ -181,6 +814,24 @@ public class Main implements AutoCloseable {
                     case ORDER:
                         m.actionOrder();
                         break;
+                    case EXPORT:
+                        m.actionExport();
+                        break;
+                    case LOAD:
+                        m.actionLoad();
+                        break;
+                    case FILLTEST:
+                        m.actionFillTest();
+                        break;
+                    case COLLIDE:
+                        m.actionCollide();
+                        break;
+                    case BENCH:
+                        m.actionBench();
+                        break;
+                    case ANALYZE:
+                        m.actionAnalyze();
+                        break;
                 }
             } finally {
                 m.close();
@@ -194,6 +845,9 @@ public class Main implements AutoCloseable {
 
     public static HikariDataSource createDataSource(Config sc) {
         int maxConnections = 2 * Math.max(sc.getGeneratorThreads(), sc.getTestThreads());
+        if (needsRangeReads(sc, null)) {
+            maxConnections += sc.getTestRangeThreads();
+        }
         LOG.info("Configuring JDBC data source for {}, maxConnections {}",
                 sc.getUrl(), maxConnections);
         HikariConfig hc = new HikariConfig();
@@ -209,12 +863,22 @@ public class Main implements AutoCloseable {
         String regex = ";\\s*(?=([^']*'[^']*')*[^']*$)";
         String ddlText = new String(
                 Files.readAllBytes(Paths.get(config.ddlFile)), StandardCharsets.UTF_8);
-        String[] sqls = ddlText.split(regex);
+        if (tables.size() > 1 && !ddlText.contains("${table_dir}")) {
+            throw new IllegalStateException("DDL script " + config.ddlFile
+                    + " does not reference the table directory variable, "
+                    + "required for tables.count > 1");
+        }
+        Map<String, String> vars = buildDdlVariables();
         try (Connection conn = ds.getConnection()) {
             conn.setAutoCommit(true);
             try (Statement stmt = conn.createStatement()) {
-                for (String sql : sqls) {
-                    stmt.execute(sql);
+                for (TableSet.Pair tp : tables.getPairs()) {
+                    LOG.info("Creating tables in {}...", tp);
+                    vars.put("table_dir", tp.getDir());
+                    String[] sqls = new StringSubstitutor(vars).replace(ddlText).split(regex);
+                    for (String sql : sqls) {
+                        stmt.execute(sql);
+                    }
                 }
             } finally {
                 conn.setAutoCommit(false);
@@ -222,23 +886,64 @@ public class Main implements AutoCloseable {
         }
     }
 
+    /**
+     * Pre-splitting settings substituted into the DDL script, see
+     * {@link PartitionPlanner#ddlVariables}. The table directory
+     * ${table_dir} is added per table pair.
+     */
+    private Map<String, String> buildDdlVariables() {
+        Instant from = null;
+        Instant till = null;
+        if (config.getGeneratorStart() != null && config.getGeneratorFinish() != null) {
+            from = config.getGeneratorStart().atStartOfDay(timeZone).toInstant();
+            till = config.getGeneratorFinish().plusDays(1).atStartOfDay(timeZone).toInstant();
+        }
+        PartitionPlanner planner = new PartitionPlanner(keyGen);
+        Map<String, String> vars = planner.ddlVariables(
+                config.getPresplitTable(), config.getPresplitIndex(), from, till);
+        if (config.getPresplitTable() > 1 || config.getPresplitIndex() > 1) {
+            LOG.info("Pre-splitting tables into {} and indexes into {} partitions",
+                    config.getPresplitTable(), config.getPresplitIndex());
+        }
+        return vars;
+    }
+
     private void dropTables() throws Exception {
         try (Connection conn = ds.getConnection()) {
             conn.setAutoCommit(true);
             try (Statement stmt = conn.createStatement()) {
-                stmt.execute("DROP TABLE `key_prefix_demo/sub`");
-                stmt.execute("DROP TABLE `key_prefix_demo/main`");
+                for (TableSet.Pair tp : tables.getPairs()) {
+                    stmt.execute("DROP TABLE " + tp.getSub());
+                    stmt.execute("DROP TABLE " + tp.getMain());
+                }
             } finally {
                 conn.setAutoCommit(false);
             }
         }
     }
 
-    private void testTask(LocalDate testDay) {
+    private void testTask(LocalDate testDay, int worker, int iterations) {
         tasksRunning.incrementAndGet();
         try {
-            for (int iter = 0; iter < config.getTestIterations(); ++iter) {
-                runWithRetry(true, (con) -> testTaskIter(con, testDay));
+            SplittableRandom random = workload.forWorker(worker);
+            for (int iter = 0; iter < iterations && writerFailure == null; ++iter) {
+                // spread the workers across the table pairs
+                TableSet.Pair tp = tables.get((worker + iter) % tables.size());
+                long seconds = timeDistribution.sample(random);
+                Instant tv = testDay.atStartOfDay(timeZone)
+                        .plus(seconds, ChronoUnit.SECONDS).toInstant();
+                if (workloadMix != null) {
+                    runMixOp(workloadMix.next(random), tp, tv, testDay, random);
+                } else if (config.getTestMode() == TestMode.BATCH) {
+                    runBatchLookups(tp, iter, random);
+                } else {
+                    if (config.getTestMode() != TestMode.PKRANGE) {
+                        timed(WorkloadMix.Op.INDEX, () -> readIndex(tp, tv));
+                    }
+                    if (config.getTestMode() != TestMode.INDEX) {
+                        timed(WorkloadMix.Op.PKRANGE, () -> testRangeIter(tp, tv, random));
+                    }
+                }
                 itemsCompleted.incrementAndGet();
             }
         } finally {
@@ -246,155 +951,779 @@ public class Main implements AutoCloseable {
         }
     }
 
-    private void testTaskIter(Connection con, LocalDate testDay) throws Exception {
+    private void timed(WorkloadMix.Op op, IntSupplier action) {
+        long started = System.nanoTime();
+        int rows = action.getAsInt();
+        opStats.get(op).record(System.nanoTime() - started, rows);
+        rowsCompleted.addAndGet(rows);
+    }
+
+    private void runMixOp(WorkloadMix.Entry entry, TableSet.Pair tp, Instant tv,
+            LocalDate testDay, SplittableRandom random) {
+        switch (entry.getOp()) {
+            case INDEX:
+                timed(WorkloadMix.Op.INDEX, () -> readIndex(tp, tv));
+                break;
+            case PKRANGE:
+                timed(WorkloadMix.Op.PKRANGE, () -> testRangeIter(tp, tv, random));
+                break;
+            case BYID: {
+                UUID id = idPools[tp.getIndex()].pick(random, keyDistribution);
+                if (id == null) {
+                    // nothing seen yet, warm up the pool with the index read
+                    timed(WorkloadMix.Op.INDEX, () -> readIndex(tp, tv));
+                } else {
+                    timed(WorkloadMix.Op.BYID, () -> readById(tp, id));
+                }
+                break;
+            }
+            case BYCOLL: {
+                UUID id = collectionPools[tp.getIndex()].pick(random, keyDistribution);
+                if (id == null) {
+                    timed(WorkloadMix.Op.INDEX, () -> readIndex(tp, tv));
+                } else {
+                    timed(WorkloadMix.Op.BYCOLL, () -> readByCollection(tp, id));
+                }
+                break;
+            }
+            case INSERT:
+                timed(WorkloadMix.Op.INSERT, () -> insertRows(tp, testDay, random));
+                break;
+        }
+        if (entry.getThinkMillis() > 0L) {
+            try {
+                Thread.sleep(entry.getThinkMillis());
+            } catch (InterruptedException ix) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int readIndex(TableSet.Pair tp, Instant tv) {
+        int[] rows = new int[1];
+        runWithRetry(true, (con) -> rows[0] = testTaskIter(con, tp, tv));
+        return rows[0];
+    }
+
+    private int readById(TableSet.Pair tp, UUID id) {
+        int[] rows = new int[1];
+        runWithRetry(true, (con) -> rows[0] = countRows(con,
+                "SELECT id, collection_id, tv, ballast1\n"
+                + "FROM " + tp.getMain() + "\n"
+                + "WHERE id = ?;\n", id));
+        return rows[0];
+    }
+
+    private int readByCollection(TableSet.Pair tp, UUID id) {
+        int[] rows = new int[1];
+        runWithRetry(true, (con) -> rows[0] = countRows(con,
+                "SELECT id, tv, ballast1\n"
+                + "FROM " + tp.getMain() + " VIEW ix_coll\n"
+                + "WHERE collection_id = ?;\n", id));
+        return rows[0];
+    }
+
+    private int countRows(Connection con, String sql, UUID id) throws Exception {
+        int rows = 0;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setObject(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ++rows;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int insertRows(TableSet.Pair tp, LocalDate testDay, SplittableRandom random) {
+        // with the affinity prefixes, the rows are added to the existing collections
+        List<DataEntry> entries = newStepEntries(testDay, random, config.getTestInsertRows(),
+                config.isUuidAffinity() ? collectionPools[tp.getIndex()] : null);
+        runWithRetry(false, (con) -> upsertEntries(con, tp, entries));
+        for (DataEntry e : entries) {
+            idPools[tp.getIndex()].add(e.mainId);
+            collectionPools[tp.getIndex()].add(e.refId);
+        }
+        return 2 * entries.size();
+    }
+
+    private int testTaskIter(Connection con, TableSet.Pair tp, Instant tv) throws Exception {
+        if (mainCache != null) {
+            return testTaskIterCached(con, tp, tv);
+        }
+        if (config.isTestScanQuery()) {
+            // scan queries run outside of the interactive transactions
+            con.setAutoCommit(true);
+            try {
+                return testTaskIterQueries(con, tp, tv, "SCAN ");
+            } finally {
+                con.setAutoCommit(false);
+            }
+        }
+        return testTaskIterQueries(con, tp, tv, "");
+    }
+
+    private int testTaskIterQueries(Connection con, TableSet.Pair tp, Instant tv,
+            String sqlPrefix)
+            throws Exception {
         int rows = 0;
-        long seconds = ThreadLocalRandom.current().nextLong(0L, 60L * 60L * 23L);
-        ZonedDateTime tv = testDay.atStartOfDay(timeZone).plus(seconds, ChronoUnit.SECONDS);
-        Timestamp ts = Timestamp.from(tv.toInstant());
+        Timestamp ts = Timestamp.from(tv);
         String sql;
 
-        sql = "SELECT main.id, sub.id, main.collection_id, main.ballast1, sub.ballast2\n"
+        sql = sqlPrefix + "SELECT main.id, sub.id, main.collection_id, main.ballast1, sub.ballast2\n"
                 + "FROM (SELECT id\n"
-                + "      FROM `key_prefix_demo/main` VIEW ix_tv\n"
+                + "      FROM " + tp.getMain() + " VIEW ix_tv\n"
                 + "      WHERE tv >= ?\n"
                 + "      ORDER BY tv LIMIT ?) AS main_ids\n"
-                + "INNER JOIN `key_prefix_demo/main` AS main\n"
+                + "INNER JOIN " + tp.getMain() + " AS main\n"
                 + "    ON main_ids.id = main.id\n"
-                + "LEFT JOIN `key_prefix_demo/sub` VIEW ix_ref AS sub\n"
+                + "LEFT JOIN " + tp.getSub() + " VIEW ix_ref AS sub\n"
                 + "    ON sub.ref_id = main.collection_id;\n";
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setTimestamp(1, ts);
             ps.setInt(2, config.getTestRows());
+            long started = System.nanoTime();
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    ++rows;
-                }
+                rows += mainResultStats.consume(rs, started, (workloadMix == null) ? null : r -> {
+                    idPools[tp.getIndex()].add(r.getObject(1, UUID.class));
+                    collectionPools[tp.getIndex()].add(r.getObject(3, UUID.class));
+                });
             }
         }
 
-        sql = "SELECT main.id, sub.id, main.collection_id, main.ballast1, sub.ballast2\n"
+        sql = sqlPrefix + "SELECT main.id, sub.id, main.collection_id, main.ballast1, sub.ballast2\n"
                 + "FROM (SELECT id\n"
-                + "      FROM `key_prefix_demo/sub` VIEW ix_tv\n"
+                + "      FROM " + tp.getSub() + " VIEW ix_tv\n"
                 + "      WHERE tv >= ?\n"
                 + "      ORDER BY tv LIMIT ?) AS sub_ids\n"
-                + "INNER JOIN `key_prefix_demo/sub` AS sub\n"
+                + "INNER JOIN " + tp.getSub() + " AS sub\n"
                 + "    ON sub_ids.id = sub.id\n"
-                + "LEFT JOIN `key_prefix_demo/main` VIEW ix_coll AS main\n"
+                + "LEFT JOIN " + tp.getMain() + " VIEW ix_coll AS main\n"
                 + "    ON sub.ref_id = main.collection_id;\n";
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setTimestamp(1, ts);
             ps.setInt(2, config.getTestRows());
+            long started = System.nanoTime();
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    ++rows;
-                }
+                rows += subResultStats.consume(rs, started, null);
             }
         }
 
-        rowsCompleted.addAndGet(rows);
+        return rows;
     }
 
-    private void fillDate(LocalDate dt) {
-        LOG.debug("Filling data for {}...", dt);
-        tasksRunning.incrementAndGet();
-        try {
-            for (int i = 0; i < config.getGeneratorScale(); ++i) {
-                long prefix = newPrefix();
-                Instant tv = newTv(dt);
-                List<DataEntry> entries = IntStream.range(0, 200)
-                        .mapToObj(ix -> newDataEntry(ix, prefix, tv))
-                        .collect(Collectors.toList());
-                runWithRetry(false, (con) -> fillDateStep(con, entries));
-                itemsCompleted.incrementAndGet();
-                rowsCompleted.addAndGet(2 * entries.size());
+    private void prepareBatchLookups() {
+        if (!workload.isSeeded()) {
+            throw new IllegalStateException("BATCH test mode requires gen.seed "
+                    + "to reproduce the keys written by FILL");
+        }
+        if (keyGen.isSequential()) {
+            LOG.warn("Keys generated with gen.uuid.sequential=true cannot be "
+                    + "reproduced exactly, BATCH lookups will mostly miss");
+        }
+        if (!keyGen.getLayout().isReproducible()) {
+            LOG.warn("Keys generated with gen.uuid.layout={} cannot be "
+                    + "reproduced exactly, BATCH lookups will mostly miss", keyGen.getLayout());
+        }
+        fillDays = listGeneratorDays();
+        if (fillDays.isEmpty()) {
+            throw new IllegalStateException("Empty FILL date range for BATCH test mode");
+        }
+        int shards = modelShards();
+        shardEstimator = new ShardEstimator(shards);
+        batchStats.clear();
+        for (BatchLayout layout : config.getTestBatchLayout().getLayouts()) {
+            for (int size : config.getTestBatchSizes()) {
+                batchStats.put(batchKey(layout, size), new BatchStats(batchKey(layout, size)));
             }
-        } catch (Exception ex) {
-            LOG.error("Failed to fill for {}", dt, ex);
-            return;
-        } finally {
-            tasksRunning.decrementAndGet();
         }
-        LOG.debug("Completed filling data for {}.", dt);
+        LOG.info("Batch lookups: sizes {}, layout {}, shards estimated over {} key ranges",
+                config.getTestBatchSizes(), config.getTestBatchLayout(), shards);
     }
 
-    private void fillDateStep(Connection con, List<DataEntry> entries) throws Exception {
-        // 5 iterations for 200 lines each
-        for (int i = 0; i < 5; ++i) {
-            String sql = "UPSERT INTO `key_prefix_demo/main`(id, collection_id, tv, ballast1) "
-                    + "VALUES(?, ?, ?, ?);";
-            try (PreparedStatement ps = con.prepareStatement(sql)) {
-                for (DataEntry entry : entries) {
-                    ps.setObject(1, entry.mainId);
-                    ps.setObject(2, entry.refId);
-                    ps.setTimestamp(3, Timestamp.from(entry.tv));
-                    ps.setString(4, entry.ballast1);
-                    ps.addBatch();
-                }
-                ps.executeBatch();
-            }
-            sql = "UPSERT INTO `key_prefix_demo/sub`(id, ref_id, tv, ballast2) "
-                    + "VALUES(?, ?, ?, ?);";
-            try (PreparedStatement ps = con.prepareStatement(sql)) {
-                for (DataEntry entry : entries) {
-                    ps.setObject(1, entry.subId);
-                    ps.setObject(2, entry.refId);
-                    ps.setTimestamp(3, Timestamp.from(entry.tv));
-                    ps.setString(4, entry.ballast2);
-                    ps.addBatch();
-                }
-                ps.executeBatch();
-            }
+    private static String batchKey(BatchLayout layout, int size) {
+        return "BATCH-" + layout + "-" + size;
+    }
+
+    /**
+     * Primary key lookup of the batch of the FILL keys, cycling through the
+     * configured batch sizes, for each of the configured batch layouts.
+     */
+    private void runBatchLookups(TableSet.Pair tp, int iter, SplittableRandom random) {
+        List<Integer> sizes = config.getTestBatchSizes();
+        int size = sizes.get(iter % sizes.size());
+        for (BatchLayout layout : config.getTestBatchLayout().getLayouts()) {
+            List<UUID> ids = (layout == BatchLayout.SHARED)
+                    ? sharedBatch(tp, size, random) : randomBatch(tp, size, random);
+            BatchStats bs = batchStats.get(batchKey(layout, size));
+            long started = System.nanoTime();
+            int[] rows = new int[1];
+            runWithRetry(true, (con) -> rows[0] = selectIdsIn(con, mainByIds(tp), ids).size());
+            bs.latency.record(System.nanoTime() - started, rows[0]);
+            bs.shards.addAndGet(shardEstimator.countShards(ids));
+            rowsCompleted.addAndGet(rows[0]);
         }
     }
 
-    private DataEntry newDataEntry(int ix, long prefix, Instant tv) {
-        DataEntry de = new DataEntry();
-        Instant idInstant = tv.plus(ix, ChronoUnit.SECONDS);
-        de.mainId = newId(prefix, idInstant);
-        de.subId = newId(prefix, idInstant);
-        de.refId = newId(prefix, idInstant);
-        de.tv = idInstant;
-        de.ballast1 = newBallast();
-        de.ballast2 = newBallast();
-        return de;
+    /**
+     * @return Consecutive keys of the FILL steps, sharing the key prefix
+     * within each step
+     */
+    private List<UUID> sharedBatch(TableSet.Pair tp, int size, SplittableRandom random) {
+        ArrayList<UUID> ids = new ArrayList<>(size);
+        while (ids.size() < size) {
+            int count = Math.min(FILL_BATCH_ROWS, size - ids.size());
+            int start = random.nextInt(FILL_BATCH_ROWS - count + 1);
+            LocalDate dt = fillDays.get(random.nextInt(fillDays.size()));
+            int step = random.nextInt(config.getGeneratorScale());
+            ids.addAll(reproduceStepIds(tp, dt, step, start + count).subList(start, start + count));
+        }
+        return ids;
     }
 
-    private Instant newTv(LocalDate dt) {
-        ZonedDateTime tv = dt.atStartOfDay(timeZone);
-        long seconds = ThreadLocalRandom.current().nextLong(0L, 60L * 60L * 24L);
-        tv = tv.plus(seconds, ChronoUnit.SECONDS);
-        return tv.toInstant();
+    /**
+     * @return Keys picked independently from random FILL steps
+     */
+    private List<UUID> randomBatch(TableSet.Pair tp, int size, SplittableRandom random) {
+        ArrayList<UUID> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            LocalDate dt = fillDays.get(random.nextInt(fillDays.size()));
+            int step = random.nextInt(config.getGeneratorScale());
+            int row = random.nextInt(FILL_BATCH_ROWS);
+            ids.add(reproduceStepIds(tp, dt, step, row + 1).get(row));
+        }
+        return ids;
     }
 
-    private String newBallast() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(getBallastLine());
-        while (sb.length() < 500) {
+    /**
+     * Reproduces the main table keys of the seeded FILL step, consuming the
+     * random streams exactly as {@link #newStepEntries(LocalDate, SplittableRandom)}
+     * does, without generating the ballast.
+     *
+     * @param tp Table pair
+     * @param dt FILL day
+     * @param step Step number within the day
+     * @param rows Number of leading rows of the step
+     * @return Main table keys of the rows
+     */
+    private List<UUID> reproduceStepIds(TableSet.Pair tp, LocalDate dt, int step, int rows) {
+        SplittableRandom random = workload.forStep(dt, step, tp.getIndex());
+        SplittableRandom idRandom = random.split();
+        Instant tv = newBatchTv(dt, random, FILL_BATCH_ROWS);
+        long prefix = keyGen.activePrefix(newPrefix(idRandom), tv);
+        ArrayList<UUID> ids = new ArrayList<>(rows);
+        DataEntry de = new DataEntry();
+        for (int ix = 0; ix < rows; ++ix) {
+            newEntryIds(de, prefix, tv.plus(ix, ChronoUnit.SECONDS), idRandom, null);
+            ids.add(de.mainId);
+        }
+        return ids;
+    }
+
+    /**
+     * Same logical reads as {@link #testTaskIter(Connection, TableSet.Pair, Instant)}, but
+     * with the joins done on the client: ids come from the indexes, and the
+     * row bodies are looked up in the cache, fetching only the misses with
+     * the batched IN queries.
+     *
+     * @param con Database connection
+     * @param tp Table pair
+     * @param tv Start of the time range
+     * @return Number of rows, counted as for the server-side LEFT JOIN
+     */
+    private int testTaskIterCached(Connection con, TableSet.Pair tp, Instant tv)
+            throws Exception {
+        Timestamp ts = Timestamp.from(tv);
+        int rows = 0;
+
+        List<UUID> mainIds = selectIds(con, "SELECT id\n"
+                + "FROM " + tp.getMain() + " VIEW ix_tv\n"
+                + "WHERE tv >= ?\n"
+                + "ORDER BY tv LIMIT ?;\n", ts);
+        Map<UUID, CachedRow> mains = readThrough(con, mainCache, mainByIds(tp), mainIds);
+        List<UUID> collIds = mains.values().stream().map(r -> r.refId)
+                .distinct().collect(Collectors.toList());
+        List<UUID> subIds = selectIdsIn(con, "SELECT id\n"
+                + "FROM " + tp.getSub() + " VIEW ix_ref\n"
+                + "WHERE ref_id IN ", collIds);
+        Map<UUID, CachedRow> subs = readThrough(con, subCache, subByIds(tp), subIds);
+        rows += countJoined(mains, subs);
+        if (workloadMix != null) {
+            for (Map.Entry<UUID, CachedRow> me : mains.entrySet()) {
+                idPools[tp.getIndex()].add(me.getKey());
+                collectionPools[tp.getIndex()].add(me.getValue().refId);
+            }
+        }
+
+        subIds = selectIds(con, "SELECT id\n"
+                + "FROM " + tp.getSub() + " VIEW ix_tv\n"
+                + "WHERE tv >= ?\n"
+                + "ORDER BY tv LIMIT ?;\n", ts);
+        subs = readThrough(con, subCache, subByIds(tp), subIds);
+        List<UUID> refIds = subs.values().stream().map(r -> r.refId)
+                .distinct().collect(Collectors.toList());
+        mainIds = selectIdsIn(con, "SELECT id\n"
+                + "FROM " + tp.getMain() + " VIEW ix_coll\n"
+                + "WHERE collection_id IN ", refIds);
+        mains = readThrough(con, mainCache, mainByIds(tp), mainIds);
+        rows += countJoined(subs, mains);
+
+        return rows;
+    }
+
+    private static String mainByIds(TableSet.Pair tp) {
+        return "SELECT id, collection_id, ballast1\n"
+                + "FROM " + tp.getMain() + "\n"
+                + "WHERE id IN ";
+    }
+
+    private static String subByIds(TableSet.Pair tp) {
+        return "SELECT id, ref_id, ballast2\n"
+                + "FROM " + tp.getSub() + "\n"
+                + "WHERE id IN ";
+    }
+
+    private List<UUID> selectIds(Connection con, String sql, Timestamp ts) throws Exception {
+        ArrayList<UUID> output = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setTimestamp(1, ts);
+            ps.setInt(2, config.getTestRows());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    output.add(rs.getObject(1, UUID.class));
+                }
+            }
+        }
+        return output;
+    }
+
+    private static String inList(int count) {
+        StringBuilder sb = new StringBuilder(3 * count + 4);
+        sb.append('(');
+        for (int i = 0; i < count; ++i) {
+            sb.append((i == 0) ? "?" : ",?");
+        }
+        return sb.append(");\n").toString();
+    }
+
+    private static List<UUID> selectIdsIn(Connection con, String sqlPrefix,
+            List<UUID> keys) throws Exception {
+        ArrayList<UUID> output = new ArrayList<>();
+        if (keys.isEmpty()) {
+            return output;
+        }
+        try (PreparedStatement ps = con.prepareStatement(sqlPrefix + inList(keys.size()))) {
+            for (int i = 0; i < keys.size(); ++i) {
+                ps.setObject(i + 1, keys.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    output.add(rs.getObject(1, UUID.class));
+                }
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Looks up the rows in the cache, fetching the misses with a single
+     * batched query and adding them to the cache.
+     */
+    private static Map<UUID, CachedRow> readThrough(Connection con, RowCache<CachedRow> cache,
+            String sqlPrefix, List<UUID> ids) throws Exception {
+        HashMap<UUID, CachedRow> output = new HashMap<>();
+        ArrayList<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            if (output.containsKey(id)) {
+                continue;
+            }
+            CachedRow row = cache.get(id);
+            if (row == null) {
+                missing.add(id);
+            } else {
+                output.put(id, row);
+            }
+        }
+        if (missing.isEmpty()) {
+            return output;
+        }
+        try (PreparedStatement ps = con.prepareStatement(sqlPrefix + inList(missing.size()))) {
+            for (int i = 0; i < missing.size(); ++i) {
+                ps.setObject(i + 1, missing.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID id = rs.getObject(1, UUID.class);
+                    CachedRow row = new CachedRow(rs.getObject(2, UUID.class), rs.getString(3));
+                    cache.put(id, row);
+                    output.put(id, row);
+                }
+            }
+        }
+        return output;
+    }
+
+    /**
+     * @return Row count of "left LEFT JOIN right ON left.refId = right.refId"
+     */
+    private static int countJoined(Map<UUID, CachedRow> left, Map<UUID, CachedRow> right) {
+        UuidLongMap matches = new UuidLongMap(right.size(), 0L);
+        for (CachedRow r : right.values()) {
+            matches.addTo(r.refId.getMostSignificantBits(),
+                    r.refId.getLeastSignificantBits(), 1L);
+        }
+        int rows = 0;
+        for (CachedRow l : left.values()) {
+            rows += (int) Math.max(1L, matches.get(l.refId));
+        }
+        return rows;
+    }
+
+    /**
+     * Index-free time range read: converts the time range into the primary key
+     * range for each prefix, reads the ranges concurrently and merges the
+     * results in time order.
+     *
+     * @param tp Table pair
+     * @param tv Start of the time range
+     * @param random Random stream of the worker
+     * @return Number of rows returned after the merge
+     */
+    private int testRangeIter(TableSet.Pair tp, Instant tv, SplittableRandom random) {
+        Instant till = tv.plusSeconds(config.getTestRangeSeconds());
+        List<Future<RangeResult>> parts = new ArrayList<>();
+        for (int index : pickRangePrefixes(random)) {
+            long prefix = keyGen.getPrefixValue(index);
+            parts.add(rangeExecutor.submit(() -> readRange(tp, prefix, tv, till)));
+        }
+        List<List<RangeRow>> mainParts = new ArrayList<>(parts.size());
+        List<List<RangeRow>> subParts = new ArrayList<>(parts.size());
+        for (Future<RangeResult> f : parts) {
+            RangeResult rr;
+            try {
+                rr = f.get();
+            } catch (InterruptedException ix) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Key range read interrupted", ix);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException("Key range read failed", ex.getCause());
+            }
+            mainParts.add(rr.main);
+            subParts.add(rr.sub);
+        }
+        int limit = config.getTestRows();
+        List<RangeRow> mainRows = KWayMerge.merge(mainParts, RangeRow.TIME_ORDER, limit);
+        if (workloadMix != null) {
+            for (RangeRow row : mainRows) {
+                idPools[tp.getIndex()].add(row.id);
+                collectionPools[tp.getIndex()].add(row.refId);
+            }
+        }
+        return mainRows.size() + KWayMerge.merge(subParts, RangeRow.TIME_ORDER, limit).size();
+    }
+
+    /**
+     * @return Number of the table partitions for the shard estimates
+     */
+    private int modelShards() {
+        int shards = config.getTestBatchShards();
+        if (shards <= 0) {
+            shards = (config.getPresplitTable() > 1)
+                    ? config.getPresplitTable() : keyGen.getPrefixCount();
+        }
+        return shards;
+    }
+
+    private int[] pickRangePrefixes(SplittableRandom random) {
+        // a single range for the time-first layout
+        int total = keyGen.getRangeCount();
+        int[] all = new int[total];
+        for (int i = 0; i < total; ++i) {
+            all[i] = i;
+        }
+        int count = config.getTestRangePrefixes();
+        if (count <= 0 || count >= total) {
+            return all;
+        }
+        // partial Fisher-Yates shuffle to get a random sample
+        for (int i = 0; i < count; ++i) {
+            int j = random.nextInt(i, total);
+            int tmp = all[i];
+            all[i] = all[j];
+            all[j] = tmp;
+        }
+        int[] sample = new int[count];
+        System.arraycopy(all, 0, sample, 0, count);
+        return sample;
+    }
+
+    private RangeResult readRange(TableSet.Pair tp, long prefix, Instant from, Instant till) {
+        RangeResult rr = new RangeResult();
+        runWithRetry(true, (con) -> {
+            UUID lo = keyGen.rangeBound(prefix, from);
+            UUID hi = keyGen.rangeBound(prefix, till);
+            rr.main = readRange(con, "SELECT id, collection_id, tv, ballast1\n"
+                    + "FROM " + tp.getMain() + "\n"
+                    + "WHERE id >= ? AND id < ?\n"
+                    + "ORDER BY id LIMIT ?;\n", lo, hi);
+            rr.sub = readRange(con, "SELECT id, ref_id, tv, ballast2\n"
+                    + "FROM " + tp.getSub() + "\n"
+                    + "WHERE id >= ? AND id < ?\n"
+                    + "ORDER BY id LIMIT ?;\n", lo, hi);
+        });
+        return rr;
+    }
+
+    private List<RangeRow> readRange(Connection con, String sql, UUID lo, UUID hi)
+            throws Exception {
+        ArrayList<RangeRow> output = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setObject(1, lo);
+            ps.setObject(2, hi);
+            ps.setInt(3, config.getTestRows());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    RangeRow row = new RangeRow();
+                    row.id = rs.getObject(1, UUID.class);
+                    row.refId = rs.getObject(2, UUID.class);
+                    Timestamp ts = rs.getTimestamp(3);
+                    row.tv = (ts == null) ? Instant.EPOCH : ts.toInstant();
+                    row.ballast = rs.getString(4);
+                    output.add(row);
+                }
+            }
+        }
+        // key order matches time order at the timestamp code granularity only
+        output.sort(RangeRow.TIME_ORDER);
+        return output;
+    }
+
+    private void fillDate(TableSet.Pair tp, LocalDate dt) {
+        LOG.debug("Filling data for {} in {}...", dt, tp);
+        tasksRunning.incrementAndGet();
+        try {
+            for (int i = 0; i < config.getGeneratorScale(); ++i) {
+                if (journal != null && journal.isDone(dt, tp.getIndex(), i)) {
+                    continue;
+                }
+                List<DataEntry> entries = newStepEntries(dt,
+                        workload.forStep(dt, i, tp.getIndex()));
+                if (fillLimiter != null) {
+                    fillLimiter.acquire(2 * entries.size());
+                }
+                long started = System.nanoTime();
+                runWithRetry(false, (con) -> fillDateStep(con, tp, entries));
+                fillStats.record(System.nanoTime() - started, 2 * entries.size());
+                if (journal != null) {
+                    journal.markDone(dt, tp.getIndex(), i);
+                }
+                itemsCompleted.incrementAndGet();
+                rowsCompleted.addAndGet(2 * entries.size());
+            }
+        } catch (Exception ex) {
+            LOG.error("Failed to fill for {} in {}, queued for retry", dt, tp, ex);
+            fillRetries.add(new FillTask(tp, dt));
+            return;
+        } finally {
+            tasksRunning.decrementAndGet();
+        }
+        LOG.debug("Completed filling data for {} in {}.", dt, tp);
+    }
+
+    private void fillDateStep(Connection con, TableSet.Pair tp, List<DataEntry> entries)
+            throws Exception {
+        // 5 iterations for 200 lines each
+        for (int i = 0; i < 5; ++i) {
+            upsertEntries(con, tp, entries);
+        }
+    }
+
+    private void upsertEntries(Connection con, TableSet.Pair tp, List<DataEntry> entries)
+            throws Exception {
+        List<DataEntry> mainRows = entries;
+        List<DataEntry> subRows = entries;
+        if (config.isSortBatches()) {
+            mainRows = sortedBy(entries, de -> de.mainId);
+            subRows = sortedBy(entries, de -> de.subId);
+        }
+        String sql = "UPSERT INTO " + tp.getMain() + "(id, collection_id, tv, ballast1) "
+                + "VALUES(?, ?, ?, ?);";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (DataEntry entry : mainRows) {
+                ps.setObject(1, entry.mainId);
+                ps.setObject(2, entry.refId);
+                ps.setTimestamp(3, Timestamp.from(entry.tv));
+                ps.setString(4, entry.ballast1);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        sql = "UPSERT INTO " + tp.getSub() + "(id, ref_id, tv, ballast2) "
+                + "VALUES(?, ?, ?, ?);";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (DataEntry entry : subRows) {
+                ps.setObject(1, entry.subId);
+                ps.setObject(2, entry.refId);
+                ps.setTimestamp(3, Timestamp.from(entry.tv));
+                ps.setString(4, entry.ballast2);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * @return Batch rows re-ordered by the key, in YDB order
+     */
+    private static List<DataEntry> sortedBy(List<DataEntry> entries,
+            Function<DataEntry, UUID> key) {
+        long[] msb = new long[entries.size()];
+        long[] lsb = new long[entries.size()];
+        for (int i = 0; i < msb.length; ++i) {
+            UUID id = key.apply(entries.get(i));
+            msb[i] = id.getMostSignificantBits();
+            lsb[i] = id.getLeastSignificantBits();
+        }
+        List<DataEntry> output = new ArrayList<>(msb.length);
+        for (int i : UuidOrder.sortOrder(msb, lsb)) {
+            output.add(entries.get(i));
+        }
+        return output;
+    }
+
+    /**
+     * Generates the rows for a single FILL step. The keys are drawn from a
+     * separate random stream, so that the rest of the data does not depend
+     * on the key generation method.
+     */
+    private List<DataEntry> newStepEntries(LocalDate dt, SplittableRandom random) {
+        return newStepEntries(dt, random, FILL_BATCH_ROWS);
+    }
+
+    private List<DataEntry> newStepEntries(LocalDate dt, SplittableRandom random, int count) {
+        return newStepEntries(dt, random, count, null);
+    }
+
+    /**
+     * @param collections Pool of the existing collection ids to add the rows
+     * to, or null to create the new collections
+     */
+    private List<DataEntry> newStepEntries(LocalDate dt, SplittableRandom random, int count,
+            IdPool collections) {
+        SplittableRandom idRandom = random.split();
+        long rawPrefix = newPrefix(idRandom);
+        Instant tv = newBatchTv(dt, random, count);
+        long prefix = keyGen.activePrefix(rawPrefix, tv);
+        return IntStream.range(0, count)
+                .mapToObj(ix -> newDataEntry(ix, prefix, tv, idRandom, random, collections))
+                .collect(Collectors.toList());
+    }
+
+    private DataEntry newDataEntry(int ix, long prefix, Instant tv,
+            SplittableRandom idRandom, SplittableRandom random, IdPool collections) {
+        DataEntry de = new DataEntry();
+        Instant idInstant = tv.plus(ix, ChronoUnit.SECONDS);
+        newEntryIds(de, prefix, idInstant, idRandom, collections);
+        de.tv = idInstant;
+        de.ballast1 = newBallast(random);
+        de.ballast2 = newBallast(random);
+        return de;
+    }
+
+    /**
+     * Generates the keys of the row pair and its collection. With the
+     * affinity prefixes, the collection id comes first and gets the shared
+     * prefix of the step, and the row keys get the prefix derived from the
+     * collection id.
+     */
+    private void newEntryIds(DataEntry de, long prefix, Instant idInstant,
+            SplittableRandom idRandom, IdPool collections) {
+        if (!config.isUuidAffinity()) {
+            de.mainId = newId(prefix, idInstant, idRandom);
+            de.subId = newId(prefix, idInstant, idRandom);
+            de.refId = newId(prefix, idInstant, idRandom);
+            return;
+        }
+        de.refId = (collections == null) ? null : collections.pick(idRandom);
+        if (de.refId == null) {
+            de.refId = newId(prefix, idInstant, idRandom);
+        }
+        long affinity = keyGen.prefixOf(de.refId);
+        de.mainId = newId(affinity, idInstant, idRandom);
+        de.subId = newId(affinity, idInstant, idRandom);
+    }
+
+    /**
+     * Picks the instant of the first row of the batch, one second apart. With
+     * the prefix rotation, the batch is moved to fit into one window, and
+     * gets the single shared prefix of the window's group.
+     */
+    private Instant newBatchTv(LocalDate dt, SplittableRandom random, int rows) {
+        return keyGen.alignToWindow(newTv(dt, random), Duration.ofSeconds(Math.max(0, rows - 1)));
+    }
+
+    private Instant newTv(LocalDate dt, SplittableRandom random) {
+        ZonedDateTime tv = dt.atStartOfDay(timeZone);
+        long seconds = random.nextLong(0L, 60L * 60L * 24L);
+        tv = tv.plus(seconds, ChronoUnit.SECONDS);
+        return tv.toInstant();
+    }
+
+    private String newBallast(SplittableRandom random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getBallastLine(random));
+        while (sb.length() < 500) {
             sb.append(", ");
-            sb.append(getBallastLine());
+            sb.append(getBallastLine(random));
         }
         return sb.toString();
     }
 
-    private String getBallastLine() {
-        int pos = ThreadLocalRandom.current().nextInt(0, ballastLines.size());
+    private String getBallastLine(SplittableRandom random) {
+        int pos = random.nextInt(0, ballastLines.size());
         return ballastLines.get(pos);
     }
 
-    private long newPrefix() {
+    private long newPrefix(SplittableRandom random) {
+        if (workload.isSeeded()) {
+            return newPrefix(keyGen, random);
+        }
+        if (keyGen.getLayout() == KeyLayout.TENANT_HASH && config.getTenants() > 0) {
+            return keyGen.prefixOf(ThreadLocalRandom.current().nextLong(config.getTenants()));
+        }
         return keyGen.nextPrefix();
     }
 
-    private UUID newId(long prefix, Instant instant) {
+    /**
+     * Picks the shared prefix of the FILL step: the prefix of the random
+     * tenant for the tenant-hash layout with gen.tenants set, or the next
+     * prefix of the generator.
+     */
+    private long newPrefix(UuidKeyGen gen, SplittableRandom random) {
+        if (gen.getLayout() == KeyLayout.TENANT_HASH && config.getTenants() > 0) {
+            return gen.prefixOf(random.nextLong(config.getTenants()));
+        }
+        return gen.nextPrefix(random);
+    }
+
+    private UUID newId(long prefix, Instant instant, SplittableRandom random) {
         if (config.isUuidV8()) {
+            if (workload.isSeeded()) {
+                return keyGen.nextValue(prefix, instant, random);
+            }
             return keyGen.nextValue(prefix, instant);
         }
         // UUIDv4 with a shared prefix applied
-        UUID v = UUID.randomUUID();
-        long mask = keyGen.getPrefixMask();
-        long msb = v.getMostSignificantBits();
-        msb &= ~mask;
-        msb |= prefix & mask;
+        UUID v;
+        if (workload.isSeeded()) {
+            long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            v = new UUID(msb, lsb);
+        } else {
+            v = UUID.randomUUID();
+        }
+        long msb = keyGen.applyPrefix(v.getMostSignificantBits(), prefix);
         return new UUID(msb, v.getLeastSignificantBits());
     }
 
@@ -579,10 +1908,186 @@ public class Main implements AutoCloseable {
         config.setPassword(props.getProperty("ydb.password"));
         config.setDdlFile(props.getProperty("ddl.file"));
         config.setBallastFile(props.getProperty("gen.ballast.file"));
+        v = props.getProperty("gen.rate");
+        if (v != null) {
+            config.setGeneratorRate(Double.parseDouble(v));
+        }
+        v = props.getProperty("test.background.rate");
+        if (v != null) {
+            config.setTestBackgroundRate(Double.parseDouble(v));
+        }
+        v = props.getProperty("gen.journal");
+        if (v != null && v.trim().length() > 0) {
+            config.setGeneratorJournal(v.trim());
+        }
+        v = props.getProperty("gen.journal.flush.seconds");
+        if (v != null) {
+            config.setGeneratorJournalFlush(Integer.parseInt(v));
+        }
+        v = props.getProperty("gen.retry.rounds");
+        if (v != null) {
+            config.setGeneratorRetryRounds(Integer.parseInt(v));
+        }
+        v = props.getProperty("dist.dir");
+        if (v != null && v.trim().length() > 0) {
+            config.setDistDir(v.trim());
+        }
+        v = props.getProperty("dist.run");
+        if (v != null && v.trim().length() > 0) {
+            config.setDistRun(v.trim());
+        }
+        v = props.getProperty("dist.workers");
+        if (v != null) {
+            config.setDistWorkers(Integer.parseInt(v));
+        }
+        v = props.getProperty("dist.timeout.seconds");
+        if (v != null) {
+            config.setDistTimeout(Integer.parseInt(v));
+        }
+        v = props.getProperty("tables.template");
+        if (v != null && v.trim().length() > 0) {
+            config.setTablesTemplate(v.trim());
+        }
+        v = props.getProperty("tables.count");
+        if (v != null) {
+            config.setTablesCount(Integer.parseInt(v));
+        }
+        v = props.getProperty("ddl.presplit");
+        if (v != null) {
+            config.setPresplitTable(Integer.parseInt(v));
+        }
+        v = props.getProperty("ddl.presplit.index");
+        if (v != null) {
+            config.setPresplitIndex(Integer.parseInt(v));
+        }
         v = props.getProperty("gen.uuid.v8");
         if (v != null) {
             config.setUuidV8(Boolean.parseBoolean(v));
         }
+        v = props.getProperty("gen.uuid.sequential");
+        if (v != null) {
+            config.setUuidSequential(Boolean.parseBoolean(v));
+        }
+        v = props.getProperty("gen.uuid.layout");
+        if (v != null) {
+            config.setKeyLayout(KeyLayout.parse(v));
+        }
+        v = props.getProperty("gen.uuid.affinity");
+        if (v != null) {
+            config.setUuidAffinity(Boolean.parseBoolean(v));
+        }
+        v = props.getProperty("gen.uuid.affinity.salt");
+        if (v != null && v.trim().length() > 0) {
+            config.setAffinitySalt(Long.parseLong(v.trim()));
+        }
+        v = props.getProperty("gen.uuid.rotation.prefixes");
+        if (v != null) {
+            config.setRotationPrefixes(Integer.parseInt(v));
+        }
+        v = props.getProperty("gen.uuid.rotation.seconds");
+        if (v != null) {
+            config.setRotationSeconds(Long.parseLong(v));
+        }
+        v = props.getProperty("gen.tenants");
+        if (v != null) {
+            config.setTenants(Integer.parseInt(v));
+        }
+        v = props.getProperty("analyze.layouts");
+        if (v != null) {
+            ArrayList<KeyLayout> layouts = new ArrayList<>();
+            for (String item : v.split(",")) {
+                if (item.trim().length() > 0) {
+                    layouts.add(KeyLayout.parse(item));
+                }
+            }
+            if (!layouts.isEmpty()) {
+                config.setAnalyzeLayouts(layouts);
+            }
+        }
+        v = props.getProperty("analyze.batches");
+        if (v != null) {
+            config.setAnalyzeBatches(Long.parseLong(v));
+        }
+        v = props.getProperty("analyze.seconds");
+        if (v != null) {
+            config.setAnalyzeSeconds(Long.parseLong(v));
+        }
+        v = props.getProperty("analyze.window.seconds");
+        if (v != null) {
+            config.setAnalyzeWindowSeconds(Integer.parseInt(v));
+        }
+        v = props.getProperty("print.count");
+        if (v != null) {
+            config.setPrintCount(Long.parseLong(v));
+        }
+        v = props.getProperty("print.rate");
+        if (v != null) {
+            config.setPrintRate(Double.parseDouble(v));
+        }
+        v = props.getProperty("print.format");
+        if (v != null) {
+            config.setPrintFormat(KeyExporter.Format.valueOf(v.trim().toUpperCase()));
+        }
+        v = props.getProperty("print.file");
+        if (v != null && v.trim().length() > 0) {
+            config.setPrintFile(v.trim());
+        }
+        v = props.getProperty("print.threads");
+        if (v != null) {
+            config.setPrintThreads(Integer.parseInt(v));
+        }
+        v = props.getProperty("print.ordered");
+        if (v != null) {
+            config.setPrintOrdered(Boolean.parseBoolean(v));
+        }
+        v = props.getProperty("print.instant");
+        if (v != null && v.trim().length() > 0) {
+            config.setPrintInstant(Instant.parse(v.trim()));
+        }
+        v = props.getProperty("bench.threads");
+        if (v != null) {
+            config.setBenchThreads(Integer.parseInt(v));
+        }
+        v = props.getProperty("bench.seconds");
+        if (v != null) {
+            config.setBenchSeconds(Integer.parseInt(v));
+        }
+        v = props.getProperty("collide.keys");
+        if (v != null) {
+            config.setCollideKeys(Long.parseLong(v));
+        }
+        v = props.getProperty("collide.scope");
+        if (v != null) {
+            config.setCollideScope(CollisionHarness.Scope.valueOf(v.trim().toUpperCase()));
+        }
+        v = props.getProperty("collide.threads");
+        if (v != null) {
+            config.setCollideThreads(Integer.parseInt(v));
+        }
+        v = props.getProperty("collide.bloom.bits");
+        if (v != null) {
+            config.setCollideBloomBits(Integer.parseInt(v));
+        }
+        v = props.getProperty("gen.sort");
+        if (v != null) {
+            config.setSortBatches(Boolean.parseBoolean(v));
+        }
+        v = props.getProperty("gen.uuid.prefix.bits");
+        if (v != null) {
+            config.setPrefixBits(Integer.parseInt(v));
+        }
+        v = props.getProperty("gen.uuid.timestamp.bits");
+        if (v != null) {
+            config.setTimestampBits(Integer.parseInt(v));
+        }
+        v = props.getProperty("gen.uuid.timestamp.unit");
+        if (v != null) {
+            config.setTimestampUnit(TimestampUnit.parse(v));
+        }
+        v = props.getProperty("gen.seed");
+        if (v != null && v.trim().length() > 0) {
+            config.setSeed(Long.parseLong(v.trim()));
+        }
         v = props.getProperty("gen.scale");
         if (v != null) {
             config.setGeneratorScale(Integer.parseInt(v));
@@ -615,40 +2120,200 @@ public class Main implements AutoCloseable {
         if (v != null) {
             config.setTestIterations(Integer.parseInt(v));
         }
-        v = props.getProperty("retry.count");
+        v = props.getProperty("test.mode");
         if (v != null) {
-            config.setRetryCount(Integer.parseInt(v));
+            config.setTestMode(TestMode.valueOf(v.trim().toUpperCase()));
         }
-        return config;
-    }
-
-    @FunctionalInterface
-    public static interface ExConsumer<T> {
-
-        void accept(T t) throws Exception;
-    }
-
-    public static final class DataEntry {
-
-        UUID mainId;
-        UUID subId;
-        UUID refId;
-        Instant tv;
-        String ballast1;
-        String ballast2;
-    }
-
-    public enum Action {
-        INIT,
-        FILL,
-        TEST,
-        CLEAN,
-        PRINT,
-        LAYOUT,
-        ORDER
-    }
-
-    public static final class Config {
+        v = props.getProperty("test.range.seconds");
+        if (v != null) {
+            config.setTestRangeSeconds(Integer.parseInt(v));
+        }
+        v = props.getProperty("test.range.prefixes");
+        if (v != null) {
+            config.setTestRangePrefixes(Integer.parseInt(v));
+        }
+        v = props.getProperty("test.range.threads");
+        if (v != null) {
+            config.setTestRangeThreads(Integer.parseInt(v));
+        }
+        v = props.getProperty("test.mix");
+        if (v != null) {
+            config.setTestMix(v);
+        }
+        v = props.getProperty("test.mix.insert.rows");
+        if (v != null) {
+            config.setTestInsertRows(Integer.parseInt(v));
+        }
+        v = props.getProperty("test.dist.time");
+        if (v != null) {
+            config.setTestTimeDistribution(v);
+        }
+        v = props.getProperty("test.dist.keys");
+        if (v != null) {
+            config.setTestKeyDistribution(v);
+        }
+        v = props.getProperty("test.batch.sizes");
+        if (v != null) {
+            ArrayList<Integer> sizes = new ArrayList<>();
+            for (String item : v.split(",")) {
+                if (item.trim().length() > 0) {
+                    sizes.add(Integer.parseInt(item.trim()));
+                }
+            }
+            if (sizes.isEmpty() || sizes.stream().anyMatch(x -> x < 1)) {
+                throw new IllegalArgumentException("Illegal test.batch.sizes: " + v);
+            }
+            config.setTestBatchSizes(sizes);
+        }
+        v = props.getProperty("test.batch.layout");
+        if (v != null) {
+            config.setTestBatchLayout(BatchLayoutMode.valueOf(v.trim().toUpperCase()));
+        }
+        v = props.getProperty("test.batch.shards");
+        if (v != null) {
+            config.setTestBatchShards(Integer.parseInt(v));
+        }
+        v = props.getProperty("test.query.scan");
+        if (v != null) {
+            config.setTestScanQuery(Boolean.parseBoolean(v));
+        }
+        v = props.getProperty("test.cache.bytes");
+        if (v != null) {
+            config.setTestCacheBytes(Long.parseLong(v));
+        }
+        v = props.getProperty("export.dir");
+        if (v != null) {
+            config.setExportDir(v);
+        }
+        v = props.getProperty("export.shards");
+        if (v != null) {
+            config.setExportShards(Integer.parseInt(v));
+        }
+        v = props.getProperty("retry.count");
+        if (v != null) {
+            config.setRetryCount(Integer.parseInt(v));
+        }
+        return config;
+    }
+
+    @FunctionalInterface
+    public static interface ExConsumer<T> {
+
+        void accept(T t) throws Exception;
+    }
+
+    static final class RangeRow {
+
+        static final Comparator<RangeRow> TIME_ORDER
+                = Comparator.comparing((RangeRow r) -> r.tv).thenComparing(r -> r.id);
+
+        UUID id;
+        UUID refId;
+        Instant tv;
+        String ballast;
+    }
+
+    /**
+     * Row body kept in the TEST cache: the reference column and the ballast.
+     */
+    static final class CachedRow {
+
+        final UUID refId;
+        final String ballast;
+
+        CachedRow(UUID refId, String ballast) {
+            this.refId = refId;
+            this.ballast = ballast;
+        }
+
+        int weight() {
+            return 16 + 2 * ((ballast == null) ? 0 : ballast.length());
+        }
+    }
+
+    static final class FillTask {
+
+        final TableSet.Pair tables;
+        final LocalDate day;
+
+        FillTask(TableSet.Pair tables, LocalDate day) {
+            this.tables = tables;
+            this.day = day;
+        }
+    }
+
+    static final class BatchStats {
+
+        final LatencyStats latency;
+        final AtomicLong shards = new AtomicLong();
+
+        BatchStats(String name) {
+            this.latency = new LatencyStats(name);
+        }
+    }
+
+    static final class RangeResult {
+
+        List<RangeRow> main = new ArrayList<>();
+        List<RangeRow> sub = new ArrayList<>();
+    }
+
+    public static final class DataEntry {
+
+        UUID mainId;
+        UUID subId;
+        UUID refId;
+        Instant tv;
+        String ballast1;
+        String ballast2;
+    }
+
+    public enum Action {
+        INIT,
+        FILL,
+        TEST,
+        CLEAN,
+        PRINT,
+        LAYOUT,
+        ORDER,
+        EXPORT,
+        LOAD,
+        FILLTEST,
+        COLLIDE,
+        BENCH,
+        ANALYZE
+    }
+
+    public enum TestMode {
+        INDEX,
+        PKRANGE,
+        BOTH,
+        MIX,
+        BATCH
+    }
+
+    public enum BatchLayout {
+        SHARED,
+        RANDOM
+    }
+
+    public enum BatchLayoutMode {
+        SHARED(BatchLayout.SHARED),
+        RANDOM(BatchLayout.RANDOM),
+        BOTH(BatchLayout.SHARED, BatchLayout.RANDOM);
+
+        private final BatchLayout[] layouts;
+
+        BatchLayoutMode(BatchLayout... layouts) {
+            this.layouts = layouts;
+        }
+
+        public BatchLayout[] getLayouts() {
+            return layouts;
+        }
+    }
+
+    public static final class Config {
 
         private String url;
         private String login;
@@ -665,6 +2330,63 @@ public class Main implements AutoCloseable {
         private int testIterations = 100;
         private int retryCount = 10;
         private boolean uuidV8 = true;
+        private boolean uuidSequential = false;
+        private KeyLayout keyLayout = KeyLayout.PREFIX;
+        private int tenants = 0;
+        private int rotationPrefixes = 0;
+        private long rotationSeconds = 300L;
+        private boolean uuidAffinity = false;
+        private long affinitySalt = 0L;
+        private List<KeyLayout> analyzeLayouts = Arrays.asList(KeyLayout.values());
+        private long analyzeBatches = 10000L;
+        private long analyzeSeconds = 3600L;
+        private int analyzeWindowSeconds = 60;
+        private boolean sortBatches = false;
+        private long printCount = 100L;
+        private double printRate = 0.0;
+        private KeyExporter.Format printFormat = KeyExporter.Format.CANONICAL;
+        private String printFile;
+        private int printThreads = Runtime.getRuntime().availableProcessors();
+        private boolean printOrdered = true;
+        private Instant printInstant;
+        private long collideKeys = 100000000L;
+        private int benchThreads = Runtime.getRuntime().availableProcessors();
+        private int benchSeconds = 10;
+        private CollisionHarness.Scope collideScope = CollisionHarness.Scope.PREFIX_INSTANT;
+        private int collideThreads = Runtime.getRuntime().availableProcessors();
+        private int collideBloomBits = 10;
+        private int prefixBits = 10;
+        private int timestampBits = BaseKeyGen.TIMESTAMP_BITS;
+        private TimestampUnit timestampUnit = TimestampUnit.SECONDS;
+        private String exportDir = "dataset";
+        private int exportShards = 4;
+        private Long seed;
+        private int presplitTable = 0;
+        private int presplitIndex = 0;
+        private TestMode testMode = TestMode.INDEX;
+        private int testRangeSeconds = 3600;
+        private int testRangePrefixes = 0;
+        private int testRangeThreads = 16;
+        private String testMix = "INDEX:1";
+        private int testInsertRows = 10;
+        private String testTimeDistribution = "UNIFORM";
+        private String testKeyDistribution = "UNIFORM";
+        private long testCacheBytes = 0L;
+        private boolean testScanQuery = false;
+        private String tablesTemplate = TableSet.DEFAULT_TEMPLATE;
+        private String distDir = "dist";
+        private String generatorJournal;
+        private double generatorRate = 0.0;
+        private double testBackgroundRate = 0.0;
+        private int generatorJournalFlush = 10;
+        private int generatorRetryRounds = 3;
+        private String distRun = "keyprefix";
+        private int distWorkers = 1;
+        private int distTimeout = 600;
+        private int tablesCount = 1;
+        private List<Integer> testBatchSizes = Arrays.asList(1, 10, 100);
+        private BatchLayoutMode testBatchLayout = BatchLayoutMode.BOTH;
+        private int testBatchShards = 0;
 
         public String getUrl() {
             return url;
@@ -786,6 +2508,462 @@ public class Main implements AutoCloseable {
             this.uuidV8 = uuidV8;
         }
 
+        public boolean isUuidSequential() {
+            return uuidSequential;
+        }
+
+        public void setUuidSequential(boolean uuidSequential) {
+            this.uuidSequential = uuidSequential;
+        }
+
+        public boolean isSortBatches() {
+            return sortBatches;
+        }
+
+        public void setSortBatches(boolean sortBatches) {
+            this.sortBatches = sortBatches;
+        }
+
+        public long getPrintCount() {
+            return printCount;
+        }
+
+        public void setPrintCount(long printCount) {
+            this.printCount = printCount;
+        }
+
+        public double getPrintRate() {
+            return printRate;
+        }
+
+        public void setPrintRate(double printRate) {
+            this.printRate = printRate;
+        }
+
+        public KeyExporter.Format getPrintFormat() {
+            return printFormat;
+        }
+
+        public void setPrintFormat(KeyExporter.Format printFormat) {
+            this.printFormat = printFormat;
+        }
+
+        public String getPrintFile() {
+            return printFile;
+        }
+
+        public void setPrintFile(String printFile) {
+            this.printFile = printFile;
+        }
+
+        public int getPrintThreads() {
+            return printThreads;
+        }
+
+        public void setPrintThreads(int printThreads) {
+            this.printThreads = printThreads;
+        }
+
+        public boolean isPrintOrdered() {
+            return printOrdered;
+        }
+
+        public void setPrintOrdered(boolean printOrdered) {
+            this.printOrdered = printOrdered;
+        }
+
+        public Instant getPrintInstant() {
+            return printInstant;
+        }
+
+        public void setPrintInstant(Instant printInstant) {
+            this.printInstant = printInstant;
+        }
+
+        public KeyLayout getKeyLayout() {
+            return keyLayout;
+        }
+
+        public void setKeyLayout(KeyLayout keyLayout) {
+            this.keyLayout = keyLayout;
+        }
+
+        public boolean isUuidAffinity() {
+            return uuidAffinity;
+        }
+
+        public void setUuidAffinity(boolean uuidAffinity) {
+            this.uuidAffinity = uuidAffinity;
+        }
+
+        public long getAffinitySalt() {
+            return affinitySalt;
+        }
+
+        public void setAffinitySalt(long affinitySalt) {
+            this.affinitySalt = affinitySalt;
+        }
+
+        public int getRotationPrefixes() {
+            return rotationPrefixes;
+        }
+
+        public void setRotationPrefixes(int rotationPrefixes) {
+            this.rotationPrefixes = rotationPrefixes;
+        }
+
+        public long getRotationSeconds() {
+            return rotationSeconds;
+        }
+
+        public void setRotationSeconds(long rotationSeconds) {
+            this.rotationSeconds = rotationSeconds;
+        }
+
+        public int getTenants() {
+            return tenants;
+        }
+
+        public void setTenants(int tenants) {
+            this.tenants = tenants;
+        }
+
+        public List<KeyLayout> getAnalyzeLayouts() {
+            return analyzeLayouts;
+        }
+
+        public void setAnalyzeLayouts(List<KeyLayout> analyzeLayouts) {
+            this.analyzeLayouts = analyzeLayouts;
+        }
+
+        public long getAnalyzeBatches() {
+            return analyzeBatches;
+        }
+
+        public void setAnalyzeBatches(long analyzeBatches) {
+            this.analyzeBatches = analyzeBatches;
+        }
+
+        public long getAnalyzeSeconds() {
+            return analyzeSeconds;
+        }
+
+        public void setAnalyzeSeconds(long analyzeSeconds) {
+            this.analyzeSeconds = analyzeSeconds;
+        }
+
+        public int getAnalyzeWindowSeconds() {
+            return analyzeWindowSeconds;
+        }
+
+        public void setAnalyzeWindowSeconds(int analyzeWindowSeconds) {
+            this.analyzeWindowSeconds = analyzeWindowSeconds;
+        }
+
+        public int getBenchThreads() {
+            return benchThreads;
+        }
+
+        public void setBenchThreads(int benchThreads) {
+            this.benchThreads = benchThreads;
+        }
+
+        public int getBenchSeconds() {
+            return benchSeconds;
+        }
+
+        public void setBenchSeconds(int benchSeconds) {
+            this.benchSeconds = benchSeconds;
+        }
+
+        public long getCollideKeys() {
+            return collideKeys;
+        }
+
+        public void setCollideKeys(long collideKeys) {
+            this.collideKeys = collideKeys;
+        }
+
+        public CollisionHarness.Scope getCollideScope() {
+            return collideScope;
+        }
+
+        public void setCollideScope(CollisionHarness.Scope collideScope) {
+            this.collideScope = collideScope;
+        }
+
+        public int getCollideThreads() {
+            return collideThreads;
+        }
+
+        public void setCollideThreads(int collideThreads) {
+            this.collideThreads = collideThreads;
+        }
+
+        public int getCollideBloomBits() {
+            return collideBloomBits;
+        }
+
+        public void setCollideBloomBits(int collideBloomBits) {
+            this.collideBloomBits = collideBloomBits;
+        }
+
+        public int getPrefixBits() {
+            return prefixBits;
+        }
+
+        public void setPrefixBits(int prefixBits) {
+            this.prefixBits = prefixBits;
+        }
+
+        public int getTimestampBits() {
+            return timestampBits;
+        }
+
+        public void setTimestampBits(int timestampBits) {
+            this.timestampBits = timestampBits;
+        }
+
+        public TimestampUnit getTimestampUnit() {
+            return timestampUnit;
+        }
+
+        public void setTimestampUnit(TimestampUnit timestampUnit) {
+            this.timestampUnit = timestampUnit;
+        }
+
+        public String getExportDir() {
+            return exportDir;
+        }
+
+        public void setExportDir(String exportDir) {
+            this.exportDir = exportDir;
+        }
+
+        public int getExportShards() {
+            return exportShards;
+        }
+
+        public void setExportShards(int exportShards) {
+            this.exportShards = exportShards;
+        }
+
+        public Long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(Long seed) {
+            this.seed = seed;
+        }
+
+        public int getPresplitTable() {
+            return presplitTable;
+        }
+
+        public void setPresplitTable(int presplitTable) {
+            this.presplitTable = presplitTable;
+        }
+
+        public int getPresplitIndex() {
+            return presplitIndex;
+        }
+
+        public void setPresplitIndex(int presplitIndex) {
+            this.presplitIndex = presplitIndex;
+        }
+
+        public TestMode getTestMode() {
+            return testMode;
+        }
+
+        public void setTestMode(TestMode testMode) {
+            this.testMode = testMode;
+        }
+
+        public int getTestRangeSeconds() {
+            return testRangeSeconds;
+        }
+
+        public void setTestRangeSeconds(int testRangeSeconds) {
+            this.testRangeSeconds = testRangeSeconds;
+        }
+
+        public int getTestRangePrefixes() {
+            return testRangePrefixes;
+        }
+
+        public void setTestRangePrefixes(int testRangePrefixes) {
+            this.testRangePrefixes = testRangePrefixes;
+        }
+
+        public String getTestMix() {
+            return testMix;
+        }
+
+        public void setTestMix(String testMix) {
+            this.testMix = testMix;
+        }
+
+        public int getTestInsertRows() {
+            return testInsertRows;
+        }
+
+        public void setTestInsertRows(int testInsertRows) {
+            this.testInsertRows = testInsertRows;
+        }
+
+        public String getTestTimeDistribution() {
+            return testTimeDistribution;
+        }
+
+        public void setTestTimeDistribution(String testTimeDistribution) {
+            this.testTimeDistribution = testTimeDistribution;
+        }
+
+        public String getTestKeyDistribution() {
+            return testKeyDistribution;
+        }
+
+        public void setTestKeyDistribution(String testKeyDistribution) {
+            this.testKeyDistribution = testKeyDistribution;
+        }
+
+        public List<Integer> getTestBatchSizes() {
+            return testBatchSizes;
+        }
+
+        public void setTestBatchSizes(List<Integer> testBatchSizes) {
+            this.testBatchSizes = testBatchSizes;
+        }
+
+        public BatchLayoutMode getTestBatchLayout() {
+            return testBatchLayout;
+        }
+
+        public void setTestBatchLayout(BatchLayoutMode testBatchLayout) {
+            this.testBatchLayout = testBatchLayout;
+        }
+
+        public int getTestBatchShards() {
+            return testBatchShards;
+        }
+
+        public void setTestBatchShards(int testBatchShards) {
+            this.testBatchShards = testBatchShards;
+        }
+
+        public double getGeneratorRate() {
+            return generatorRate;
+        }
+
+        public void setGeneratorRate(double generatorRate) {
+            this.generatorRate = generatorRate;
+        }
+
+        public double getTestBackgroundRate() {
+            return testBackgroundRate;
+        }
+
+        public void setTestBackgroundRate(double testBackgroundRate) {
+            this.testBackgroundRate = testBackgroundRate;
+        }
+
+        public String getGeneratorJournal() {
+            return generatorJournal;
+        }
+
+        public void setGeneratorJournal(String generatorJournal) {
+            this.generatorJournal = generatorJournal;
+        }
+
+        public int getGeneratorJournalFlush() {
+            return generatorJournalFlush;
+        }
+
+        public void setGeneratorJournalFlush(int generatorJournalFlush) {
+            this.generatorJournalFlush = generatorJournalFlush;
+        }
+
+        public int getGeneratorRetryRounds() {
+            return generatorRetryRounds;
+        }
+
+        public void setGeneratorRetryRounds(int generatorRetryRounds) {
+            this.generatorRetryRounds = generatorRetryRounds;
+        }
+
+        public String getDistDir() {
+            return distDir;
+        }
+
+        public void setDistDir(String distDir) {
+            this.distDir = distDir;
+        }
+
+        public String getDistRun() {
+            return distRun;
+        }
+
+        public void setDistRun(String distRun) {
+            this.distRun = distRun;
+        }
+
+        public int getDistWorkers() {
+            return distWorkers;
+        }
+
+        public void setDistWorkers(int distWorkers) {
+            this.distWorkers = distWorkers;
+        }
+
+        public int getDistTimeout() {
+            return distTimeout;
+        }
+
+        public void setDistTimeout(int distTimeout) {
+            this.distTimeout = distTimeout;
+        }
+
+        public String getTablesTemplate() {
+            return tablesTemplate;
+        }
+
+        public void setTablesTemplate(String tablesTemplate) {
+            this.tablesTemplate = tablesTemplate;
+        }
+
+        public int getTablesCount() {
+            return tablesCount;
+        }
+
+        public void setTablesCount(int tablesCount) {
+            this.tablesCount = tablesCount;
+        }
+
+        public boolean isTestScanQuery() {
+            return testScanQuery;
+        }
+
+        public void setTestScanQuery(boolean testScanQuery) {
+            this.testScanQuery = testScanQuery;
+        }
+
+        public long getTestCacheBytes() {
+            return testCacheBytes;
+        }
+
+        public void setTestCacheBytes(long testCacheBytes) {
+            this.testCacheBytes = testCacheBytes;
+        }
+
+        public int getTestRangeThreads() {
+            return testRangeThreads;
+        }
+
+        public void setTestRangeThreads(int testRangeThreads) {
+            this.testRangeThreads = testRangeThreads;
+        }
+
     }
 
 }
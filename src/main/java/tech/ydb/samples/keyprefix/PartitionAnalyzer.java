@@ -0,0 +1,181 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Models the distribution of the writes over the table partitions for the
+ * key layout, without the database. Used to compare the layouts on the same
+ * workload before running FILL.
+ *
+ * The batches of the FILL shape (the shared prefix, one key per row, the rows
+ * one second apart) arrive evenly over the modeled period, as in the live
+ * ingestion. The partitions are the equal ranges of the YDB key space, see
+ * {@link ShardEstimator}. The analyzer reports the number of partitions
+ * touched by each batch (the transaction fan-out), the number of partitions
+ * written within each time window (the hot write set), and the share of the
+ * busiest partition. With the prefix rotation enabled in the generator, the
+ * batches are aligned to the rotation windows, and the hot write set within
+ * the rotation window is bounded by the number of the active prefixes.
+ *
+ * @author zinal
+ */
+public class PartitionAnalyzer {
+
+    private final ShardEstimator shards;
+    private final int batchRows;
+    private final long windowMillis;
+
+    /**
+     * @param shards Number of partitions
+     * @param batchRows Number of keys per batch
+     * @param windowSeconds Time window for the active partition count
+     */
+    public PartitionAnalyzer(int shards, int batchRows, int windowSeconds) {
+        if (batchRows < 1 || windowSeconds < 1) {
+            throw new IllegalArgumentException("Illegal batch rows " + batchRows
+                    + " or window seconds " + windowSeconds);
+        }
+        this.shards = new ShardEstimator(shards);
+        this.batchRows = batchRows;
+        this.windowMillis = 1000L * windowSeconds;
+    }
+
+    /**
+     * Runs the model.
+     *
+     * @param gen Key generator
+     * @param prefixes Shared prefix of each batch
+     * @param from Start of the modeled period
+     * @param seconds Length of the modeled period
+     * @param batches Number of batches
+     * @param seed Seed of the random stream
+     * @return Model results
+     */
+    public Result run(UuidKeyGen gen, PrefixSource prefixes, Instant from,
+            long seconds, long batches, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int count = shards.getShards();
+        long[] writes = new long[count];
+        BitSet batchSet = new BitSet(count);
+        BitSet windowSet = new BitSet(count);
+        long batchShards = 0L;
+        long windows = 0L;
+        long windowShards = 0L;
+        long window = -1L;
+        long stepMillis = Math.max(1L, 1000L * seconds / Math.max(1L, batches));
+        Duration batchSpan = Duration.ofSeconds(batchRows - 1);
+        for (long i = 0; i < batches; ++i) {
+            long offset = i * stepMillis;
+            if (offset / windowMillis != window) {
+                if (window >= 0L) {
+                    ++windows;
+                    windowShards += windowSet.cardinality();
+                    windowSet.clear();
+                }
+                window = offset / windowMillis;
+            }
+            // with the rotation, the batch stays within one window and group
+            Instant tv = gen.alignToWindow(from.plusMillis(offset), batchSpan);
+            long prefix = gen.activePrefix(prefixes.next(random), tv);
+            batchSet.clear();
+            for (int ix = 0; ix < batchRows; ++ix) {
+                UUID id = gen.nextValue(prefix, tv.plusSeconds(ix), random);
+                int shard = shards.shardOf(id);
+                ++writes[shard];
+                batchSet.set(shard);
+                windowSet.set(shard);
+            }
+            batchShards += batchSet.cardinality();
+        }
+        if (window >= 0L) {
+            ++windows;
+            windowShards += windowSet.cardinality();
+        }
+        long max = 0L;
+        for (long w : writes) {
+            max = Math.max(max, w);
+        }
+        String name = gen.getLayout().toString();
+        if (gen.getRotationPrefixes() > 0) {
+            name += String.format(" rotating %d prefixes per %d s", gen.getRotationPrefixes(),
+                    gen.getRotationWindow().getSeconds());
+        }
+        return new Result(name, count, batches * batchRows,
+                (batches > 0L) ? ((double) batchShards) / batches : 0.0,
+                (windows > 0L) ? ((double) windowShards) / windows : 0.0,
+                windowMillis / 1000L, max);
+    }
+
+    /**
+     * Chooses the shared prefix of the batch.
+     */
+    public interface PrefixSource {
+
+        long next(SplittableRandom random);
+    }
+
+    /**
+     * Results of the model.
+     */
+    public static final class Result {
+
+        private final String name;
+        private final int shards;
+        private final long keys;
+        private final double shardsPerBatch;
+        private final double shardsPerWindow;
+        private final long windowSeconds;
+        private final long maxShardKeys;
+
+        Result(String name, int shards, long keys, double shardsPerBatch,
+                double shardsPerWindow, long windowSeconds, long maxShardKeys) {
+            this.name = name;
+            this.shards = shards;
+            this.keys = keys;
+            this.shardsPerBatch = shardsPerBatch;
+            this.shardsPerWindow = shardsPerWindow;
+            this.windowSeconds = windowSeconds;
+            this.maxShardKeys = maxShardKeys;
+        }
+
+        /**
+         * @return Layout name, with the rotation settings
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Average number of partitions written by one batch
+         */
+        public double getShardsPerBatch() {
+            return shardsPerBatch;
+        }
+
+        /**
+         * @return Average number of partitions written within the window
+         */
+        public double getShardsPerWindow() {
+            return shardsPerWindow;
+        }
+
+        /**
+         * @return Share of the writes going to the busiest partition, 0 to 1
+         */
+        public double getMaxShardShare() {
+            return (keys > 0L) ? ((double) maxShardKeys) / keys : 0.0;
+        }
+
+        public String format() {
+            return String.format("Layout %s: %d keys on %d partitions, "
+                    + "%.2f partitions per batch, %.1f active partitions per %d s window, "
+                    + "busiest partition %.2f%% of writes (%.2f%% if even)",
+                    name, keys, shards, shardsPerBatch, shardsPerWindow, windowSeconds,
+                    100.0 * getMaxShardShare(), 100.0 / shards);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Computes the initial partition boundaries aligned with the key layout of
+ * {@link UuidKeyGen}, so that the tables can be pre-split with
+ * {@code PARTITION_AT_KEYS} before the bulk load.
+ *
+ * Up to 2^prefixBits partitions, the boundaries are placed at the prefix
+ * values. Above that, each prefix range is further split by the embedded
+ * timestamp, uniformly over the time range of the data to be loaded.
+ *
+ * For the time-first layout, the boundaries are placed at the timestamps,
+ * uniformly over the time range of the data, which must be known.
+ *
+ * YDB accepts {@code PARTITION_AT_KEYS} only on creation, so the index
+ * boundaries go into the {@code WITH} clause of the index declaration
+ * within {@code CREATE TABLE}, not into {@code ALTER INDEX}.
+ *
+ * @author zinal
+ */
+public class PartitionPlanner {
+
+    private final UuidKeyGen keyGen;
+
+    public PartitionPlanner(UuidKeyGen keyGen) {
+        this.keyGen = keyGen;
+    }
+
+    /**
+     * Computes the boundaries for the table or index keyed by the structured
+     * UUID values.
+     *
+     * @param partitions Desired number of partitions
+     * @param from Start of the time range of the data, or null
+     * @param till End of the time range of the data (exclusive), or null
+     * @return Partition boundaries, in YDB key order
+     * @throws IllegalArgumentException for the time-first layout without the
+     * time range
+     */
+    public List<UUID> uuidBoundaries(int partitions, Instant from, Instant till) {
+        ArrayList<UUID> output = new ArrayList<>();
+        if (partitions <= 1) {
+            return output;
+        }
+        if (keyGen.getLayout().isTimeFirst()) {
+            if (from == null || till == null || !from.isBefore(till)) {
+                // the prefix splits would leave all the writes in one partition
+                throw new IllegalArgumentException("Pre-splitting the "
+                        + keyGen.getLayout() + " layout requires gen.start and gen.finish");
+            }
+            long spanMillis = Duration.between(from, till).toMillis();
+            UUID prev = null;
+            for (int i = 1; i < partitions; ++i) {
+                Instant point = from.plusMillis(spanMillis * i / partitions);
+                UUID bound = keyGen.rangeBound(0L, point);
+                // several points may fall into one timestamp unit
+                if (!bound.equals(prev)) {
+                    output.add(bound);
+                    prev = bound;
+                }
+            }
+            return output;
+        }
+        int prefixCount = keyGen.getPrefixCount();
+        if (partitions <= prefixCount || from == null || till == null
+                || !from.isBefore(till)) {
+            int count = Math.min(partitions, prefixCount);
+            for (int i = 1; i < count; ++i) {
+                int index = (int) ((long) i * prefixCount / count);
+                output.add(prefixBound(index));
+            }
+            return output;
+        }
+        int slices = (partitions + prefixCount - 1) / prefixCount;
+        long spanMillis = Duration.between(from, till).toMillis();
+        for (int index = 0; index < prefixCount; ++index) {
+            if (index > 0) {
+                output.add(prefixBound(index));
+            }
+            long prefix = keyGen.getPrefixValue(index);
+            for (int j = 1; j < slices; ++j) {
+                Instant point = from.plusMillis(spanMillis * j / slices);
+                output.add(keyGen.rangeBound(prefix, point));
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Computes the boundaries for the index keyed by the timestamp column.
+     *
+     * @param partitions Desired number of partitions
+     * @param from Start of the time range of the data
+     * @param till End of the time range of the data (exclusive)
+     * @return Partition boundaries, ordered
+     */
+    public static List<Instant> timeBoundaries(int partitions, Instant from, Instant till) {
+        ArrayList<Instant> output = new ArrayList<>();
+        if (partitions <= 1 || from == null || till == null || !from.isBefore(till)) {
+            return output;
+        }
+        long spanSeconds = Duration.between(from, till).getSeconds();
+        Instant prev = null;
+        for (int i = 1; i < partitions; ++i) {
+            Instant point = from.plusSeconds(spanSeconds * i / partitions);
+            if (prev == null || point.isAfter(prev)) {
+                output.add(point);
+                prev = point;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Formats the partitioning setting for the UUID boundaries.
+     *
+     * @param keys Partition boundaries
+     * @return Setting text, or empty string for no boundaries
+     */
+    public static String formatUuidKeys(List<UUID> keys) {
+        return formatKeys(uuidLiterals(keys));
+    }
+
+    /**
+     * Formats the index declaration clause for the UUID boundaries.
+     *
+     * @param keys Partition boundaries
+     * @return Clause text, or empty string for no boundaries
+     */
+    public static String formatIndexUuidKeys(List<UUID> keys) {
+        return formatIndexKeys(uuidLiterals(keys));
+    }
+
+    /**
+     * Formats the index declaration clause for the timestamp boundaries.
+     *
+     * @param keys Partition boundaries
+     * @return Clause text, or empty string for no boundaries
+     */
+    public static String formatIndexTimeKeys(List<Instant> keys) {
+        ArrayList<String> literals = new ArrayList<>(keys.size());
+        for (Instant key : keys) {
+            literals.add("Timestamp(\"" + key.toString() + "\")");
+        }
+        return formatIndexKeys(literals);
+    }
+
+    /**
+     * Computes the pre-splitting settings substituted into the DDL script:
+     * ${table_keys} continues the {@code WITH} settings of the table,
+     * ${uuid_index_keys} and ${time_index_keys} follow the column list of the
+     * index declaration within {@code CREATE TABLE}.
+     *
+     * @param tablePartitions Desired number of partitions for the tables
+     * @param indexPartitions Desired number of partitions for the indexes
+     * @param from Start of the time range of the data, or null
+     * @param till End of the time range of the data (exclusive), or null
+     * @return DDL script variables
+     */
+    public Map<String, String> ddlVariables(int tablePartitions, int indexPartitions,
+            Instant from, Instant till) {
+        Map<String, String> vars = new HashMap<>();
+        vars.put("table_keys", formatUuidKeys(
+                uuidBoundaries(tablePartitions, from, till)));
+        vars.put("uuid_index_keys", formatIndexUuidKeys(
+                uuidBoundaries(indexPartitions, from, till)));
+        vars.put("time_index_keys", formatIndexTimeKeys(
+                timeBoundaries(indexPartitions, from, till)));
+        return vars;
+    }
+
+    private static List<String> uuidLiterals(List<UUID> keys) {
+        ArrayList<String> literals = new ArrayList<>(keys.size());
+        for (UUID key : keys) {
+            literals.add("Uuid(\"" + key.toString() + "\")");
+        }
+        return literals;
+    }
+
+    private static String formatKeys(List<String> literals) {
+        if (literals.isEmpty()) {
+            return "";
+        }
+        return ",\n  PARTITION_AT_KEYS = (" + keyList(literals) + ")";
+    }
+
+    private static String formatIndexKeys(List<String> literals) {
+        if (literals.isEmpty()) {
+            return "";
+        }
+        return " WITH (\n    PARTITION_AT_KEYS = (" + keyList(literals) + ")\n  )";
+    }
+
+    private static String keyList(List<String> literals) {
+        StringBuilder sb = new StringBuilder();
+        boolean comma = false;
+        for (String literal : literals) {
+            if (comma) {
+                sb.append(", ");
+            } else {
+                comma = true;
+            }
+            sb.append("(").append(literal).append(")");
+        }
+        return sb.toString();
+    }
+
+    private UUID prefixBound(int index) {
+        return new UUID(BaseKeyGen.reorder(keyGen.getPrefixValue(index)), 0L);
+    }
+}
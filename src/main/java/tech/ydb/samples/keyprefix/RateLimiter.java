@@ -0,0 +1,122 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free rate limiter shared by the worker threads.
+ *
+ * The global rate is split evenly between the stripes, each stripe being the
+ * token bucket kept as the single "next free time" value updated with CAS.
+ * A thread takes the permits from its home stripe, or from any other stripe
+ * which is idle at the moment, and only when all stripes are busy reserves
+ * the permits on its home stripe and sleeps until the reservation starts.
+ * The stripe values are spread over separate cache lines.
+ *
+ * @author zinal
+ */
+public class RateLimiter {
+
+    private static final int STRIDE = 8;
+
+    private final double permitsPerSecond;
+    private final int stripes;
+    private final double stripeNanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLongArray next;
+
+    /**
+     * @param permitsPerSecond Global rate, permits per second
+     * @param stripes Number of stripes, typically the number of threads
+     * @param burstMillis Idle time a stripe can accumulate as credit
+     */
+    public RateLimiter(double permitsPerSecond, int stripes, long burstMillis) {
+        if (!(permitsPerSecond > 0.0) || stripes < 1 || burstMillis < 0L) {
+            throw new IllegalArgumentException("Illegal rate " + permitsPerSecond
+                    + ", stripes " + stripes + " or burst " + burstMillis);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.stripes = stripes;
+        this.stripeNanosPerPermit = 1000000000.0 * stripes / permitsPerSecond;
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(burstMillis);
+        this.next = new AtomicLongArray(stripes * STRIDE);
+        long now = System.nanoTime();
+        for (int i = 0; i < stripes; ++i) {
+            next.set(i * STRIDE, now);
+        }
+    }
+
+    public double getRate() {
+        return permitsPerSecond;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Takes the permits, if any stripe can provide them without waiting.
+     *
+     * @param permits Number of permits
+     * @return true, if the permits were taken
+     */
+    public boolean tryAcquire(int permits) {
+        long cost = costOf(permits);
+        int home = homeStripe();
+        for (int k = 0; k < stripes; ++k) {
+            if (takeIdle((home + k) % stripes, cost)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the permits, waiting as needed to keep the configured rate.
+     *
+     * @param permits Number of permits
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (tryAcquire(permits)) {
+            return;
+        }
+        long cost = costOf(permits);
+        int index = homeStripe() * STRIDE;
+        while (true) {
+            long now = System.nanoTime();
+            long prev = next.get(index);
+            long start = Math.max(prev, now - burstNanos);
+            if (next.compareAndSet(index, prev, start + cost)) {
+                long wait = start - now;
+                if (wait > 0L) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean takeIdle(int stripe, long cost) {
+        int index = stripe * STRIDE;
+        while (true) {
+            long now = System.nanoTime();
+            long prev = next.get(index);
+            if (prev - now > 0L) {
+                return false;
+            }
+            long start = Math.max(prev, now - burstNanos);
+            if (next.compareAndSet(index, prev, start + cost)) {
+                return true;
+            }
+        }
+    }
+
+    private long costOf(int permits) {
+        return (long) (permits * stripeNanosPerPermit);
+    }
+
+    private int homeStripe() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
@@ -0,0 +1,141 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Result consumption statistics for a single query kind: time to the first
+ * row, total time, rows and bytes received, and the time spent decoding the
+ * column values on the client.
+ *
+ * Time to first row approximates the server latency, the rest of the total
+ * time less the decoding time approximates the transfer cost.
+ *
+ * @author zinal
+ */
+public class ResultStats {
+
+    private final String name;
+    private final LatencyStats firstRow;
+    private final LatencyStats total;
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public ResultStats(String name) {
+        this.name = name;
+        this.firstRow = new LatencyStats(name + " first row");
+        this.total = new LatencyStats(name + " total");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyStats getFirstRow() {
+        return firstRow;
+    }
+
+    public LatencyStats getTotal() {
+        return total;
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    /**
+     * Reads the whole result set, decoding every column value.
+     *
+     * @param rs Result set, just returned by the query execution
+     * @param startedAt Query start time, as of {@link System#nanoTime()}
+     * @param handler Row handler positioned on each row, or null
+     * @return Number of rows read
+     * @throws Exception on read error, or as thrown by the handler
+     */
+    public int consume(ResultSet rs, long startedAt,
+            Main.ExConsumer<ResultSet> handler) throws Exception {
+        ResultSetMetaData md = rs.getMetaData();
+        int columns = md.getColumnCount();
+        long firstRowAt = 0L;
+        long decode = 0L;
+        long size = 0L;
+        int rows = 0;
+        while (rs.next()) {
+            if (rows == 0) {
+                firstRowAt = System.nanoTime();
+            }
+            ++rows;
+            long decodeStart = System.nanoTime();
+            for (int i = 1; i <= columns; ++i) {
+                size += sizeOf(rs.getObject(i));
+            }
+            decode += System.nanoTime() - decodeStart;
+            if (handler != null) {
+                handler.accept(rs);
+            }
+        }
+        long finishedAt = System.nanoTime();
+        if (rows == 0) {
+            firstRowAt = finishedAt;
+        }
+        firstRow.record(firstRowAt - startedAt, rows);
+        total.record(finishedAt - startedAt, rows);
+        bytes.add(size);
+        decodeNanos.add(decode);
+        return rows;
+    }
+
+    /**
+     * @param v Column value
+     * @return Estimated size of the value on the wire, in bytes
+     */
+    static long sizeOf(Object v) {
+        if (v == null) {
+            return 0L;
+        }
+        if (v instanceof UUID) {
+            return 16L;
+        }
+        if (v instanceof byte[]) {
+            return ((byte[]) v).length;
+        }
+        if (v instanceof CharSequence) {
+            return v.toString().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (v instanceof java.util.Date || v instanceof java.time.temporal.Temporal) {
+            return 8L;
+        }
+        if (v instanceof Integer || v instanceof Float) {
+            return 4L;
+        }
+        return 8L;
+    }
+
+    /**
+     * @param expectedRows Rows expected per query, for the fan-out ratio
+     * @return Single line summary suitable for logging.
+     */
+    public String format(int expectedRows) {
+        long count = total.getCount();
+        double avgRows = (count == 0L) ? 0.0 : ((double) total.getRows()) / count;
+        double avgBytes = (count == 0L) ? 0.0 : ((double) getBytes()) / count;
+        double decodeMillis = (count == 0L) ? 0.0
+                : ((double) getDecodeNanos()) / count / 1000000.0;
+        double firstMillis = firstRow.getAverageMillis();
+        double transferMillis = Math.max(0.0, total.getAverageMillis() - firstMillis - decodeMillis);
+        return String.format("%s: %d queries, avg %.1f rows (fan-out %.2f), avg %.0f bytes, "
+                + "first row avg %.2f ms p99 %.2f ms, total avg %.2f ms p99 %.2f ms, "
+                + "transfer %.2f ms, decode %.2f ms",
+                name, count, avgRows, (expectedRows > 0) ? avgRows / expectedRows : 0.0,
+                avgBytes, firstMillis, firstRow.getPercentileMillis(99.0),
+                total.getAverageMillis(), total.getPercentileMillis(99.0),
+                transferMillis, decodeMillis);
+    }
+}
@@ -0,0 +1,248 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-process cache of the table rows keyed by the row id, used as the
+ * read-through layer in TEST.
+ *
+ * Each stripe is a segmented LRU: new entries go into the probation segment,
+ * and entries hit again are promoted into the protected segment, which takes
+ * up to 80% of the stripe capacity. A one-off scan therefore only evicts
+ * other probationary entries, keeping the frequently used rows. The capacity
+ * is defined in bytes, as estimated by the weigher function.
+ *
+ * @author zinal
+ * @param <V> Cached value type
+ */
+public class RowCache<V> {
+
+    /**
+     * Estimated per-entry overhead: map node, key object and links.
+     */
+    static final int ENTRY_OVERHEAD = 96;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+    private final ToIntFunction<V> weigher;
+    private final long capacityBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacityBytes Total cache capacity, in bytes
+     * @param stripeBits Number of stripes, as the power of two
+     * @param weigher Estimated size of the value, in bytes
+     */
+    @SuppressWarnings("unchecked")
+    public RowCache(long capacityBytes, int stripeBits, ToIntFunction<V> weigher) {
+        if (capacityBytes < 1L || stripeBits < 0 || stripeBits > 10) {
+            throw new IllegalArgumentException("Illegal cache capacity " + capacityBytes
+                    + " or stripe bits " + stripeBits);
+        }
+        int count = 1 << stripeBits;
+        this.segments = (Segment<V>[]) new Segment<?>[count];
+        for (int i = 0; i < count; ++i) {
+            segments[i] = new Segment<>(Math.max(1L, capacityBytes / count));
+        }
+        this.segmentMask = count - 1;
+        this.weigher = weigher;
+        this.capacityBytes = capacityBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Share of the lookups served from the cache, 0 to 1
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0L) ? 0.0 : ((double) h) / total;
+    }
+
+    /**
+     * @return Estimated size of the cached entries, in bytes
+     */
+    public long getSizeBytes() {
+        long total = 0L;
+        for (Segment<V> s : segments) {
+            synchronized (s) {
+                total += s.probationBytes + s.protectedBytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Number of the cached entries
+     */
+    public int size() {
+        int total = 0;
+        for (Segment<V> s : segments) {
+            synchronized (s) {
+                total += s.probation.size() + s.protectedMap.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Looks up the value, updating the hit and miss counters.
+     *
+     * @param key Row id
+     * @return Cached value, or null on a miss
+     */
+    public V get(UUID key) {
+        Segment<V> s = segmentFor(key);
+        V value;
+        synchronized (s) {
+            value = s.get(key);
+            evictions.add(s.evictOverflow());
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Adds or replaces the value.
+     *
+     * @param key Row id
+     * @param value Row value
+     */
+    public void put(UUID key, V value) {
+        int weight = ENTRY_OVERHEAD + Math.max(0, weigher.applyAsInt(value));
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            s.put(key, value, weight);
+            evictions.add(s.evictOverflow());
+        }
+    }
+
+    public String format(String name) {
+        return String.format("Cache %s: %d hits, %d misses, hit ratio %.3f, "
+                + "%d evictions, %d entries, %d of %d bytes",
+                name, getHits(), getMisses(), getHitRatio(), getEvictions(),
+                size(), getSizeBytes(), capacityBytes);
+    }
+
+    private Segment<V> segmentFor(UUID key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private static final class Node<V> {
+
+        final V value;
+        final int weight;
+
+        Node(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Single stripe, guarded by its own monitor.
+     */
+    private static final class Segment<V> {
+
+        final long capacity;
+        final long protectedCapacity;
+        // access-ordered, the eldest entry is the LRU one
+        final LinkedHashMap<UUID, Node<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<UUID, Node<V>> protectedMap = new LinkedHashMap<>(16, 0.75f, true);
+        long probationBytes;
+        long protectedBytes;
+
+        Segment(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (capacity * 4L) / 5L;
+        }
+
+        V get(UUID key) {
+            Node<V> node = protectedMap.get(key);
+            if (node != null) {
+                return node.value;
+            }
+            node = probation.remove(key);
+            if (node == null) {
+                return null;
+            }
+            probationBytes -= node.weight;
+            protectedMap.put(key, node);
+            protectedBytes += node.weight;
+            demoteOverflow();
+            return node.value;
+        }
+
+        void put(UUID key, V value, int weight) {
+            Node<V> node = new Node<>(value, weight);
+            Node<V> prev = protectedMap.get(key);
+            if (prev != null) {
+                protectedMap.put(key, node);
+                protectedBytes += weight - prev.weight;
+                demoteOverflow();
+                return;
+            }
+            prev = probation.put(key, node);
+            probationBytes += weight - ((prev == null) ? 0 : prev.weight);
+        }
+
+        private void demoteOverflow() {
+            Iterator<Map.Entry<UUID, Node<V>>> it = protectedMap.entrySet().iterator();
+            while (protectedBytes > protectedCapacity && protectedMap.size() > 1) {
+                Map.Entry<UUID, Node<V>> eldest = it.next();
+                it.remove();
+                protectedBytes -= eldest.getValue().weight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationBytes += eldest.getValue().weight;
+            }
+        }
+
+        int evictOverflow() {
+            int count = 0;
+            while (probationBytes + protectedBytes > capacity) {
+                LinkedHashMap<UUID, Node<V>> victims = probation.isEmpty() ? protectedMap : probation;
+                Iterator<Map.Entry<UUID, Node<V>>> it = victims.entrySet().iterator();
+                if (!it.hasNext()) {
+                    break;
+                }
+                Map.Entry<UUID, Node<V>> eldest = it.next();
+                it.remove();
+                if (victims == probation) {
+                    probationBytes -= eldest.getValue().weight;
+                } else {
+                    protectedBytes -= eldest.getValue().weight;
+                }
+                ++count;
+            }
+            return count;
+        }
+    }
+}
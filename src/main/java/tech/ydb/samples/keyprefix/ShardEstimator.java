@@ -0,0 +1,51 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Estimates the number of table shards touched by a set of keys, modeling the
+ * table as split into the specified number of equal ranges of the YDB key
+ * space. Up to 2^prefixBits shards, the model matches the pre-split layout
+ * produced by {@link PartitionPlanner}.
+ *
+ * @author zinal
+ */
+public class ShardEstimator {
+
+    private final int shards;
+
+    public ShardEstimator(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Illegal shard count: " + shards);
+        }
+        this.shards = shards;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * @param id Key value, as passed to YDB
+     * @return Shard number, 0 to shards - 1, in key order
+     */
+    public int shardOf(UUID id) {
+        // YDB compares the UUIDs by the logical (non-reordered) bytes
+        long top = BaseKeyGen.reorder(id.getMostSignificantBits()) >>> 32;
+        return (int) ((top * shards) >>> 32);
+    }
+
+    /**
+     * @param ids Key values
+     * @return Number of distinct shards containing the keys
+     */
+    public int countShards(Collection<UUID> ids) {
+        BitSet seen = new BitSet(shards);
+        for (UUID id : ids) {
+            seen.set(shardOf(id));
+        }
+        return seen.cardinality();
+    }
+}
@@ -0,0 +1,98 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set of the similarly shaped table pairs used by the workload.
+ *
+ * Each pair consists of the "main" and "sub" tables placed into the directory
+ * named after the template. The template may contain the format placeholder
+ * for the pair number, like {@code %d} or {@code %02d}. Without it, a single
+ * pair uses the template as is, and multiple pairs get the {@code _%d}
+ * suffix appended.
+ *
+ * @author zinal
+ */
+public class TableSet {
+
+    public static final String DEFAULT_TEMPLATE = "key_prefix_demo";
+
+    private final List<Pair> pairs;
+
+    public TableSet(String template, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Illegal table count: " + count);
+        }
+        if (template == null || template.trim().length() == 0) {
+            template = DEFAULT_TEMPLATE;
+        }
+        if (count > 1 && !template.contains("%")) {
+            template = template + "_%d";
+        }
+        ArrayList<Pair> temp = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            String dir = template.contains("%") ? String.format(template, i) : template;
+            temp.add(new Pair(i, dir));
+        }
+        this.pairs = Collections.unmodifiableList(temp);
+    }
+
+    public int size() {
+        return pairs.size();
+    }
+
+    public Pair get(int index) {
+        return pairs.get(index);
+    }
+
+    public List<Pair> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Table pair: "main" and "sub" tables sharing the directory.
+     */
+    public static final class Pair {
+
+        private final int index;
+        private final String dir;
+        private final String main;
+        private final String sub;
+
+        Pair(int index, String dir) {
+            this.index = index;
+            this.dir = dir;
+            this.main = dir + "/main";
+            this.sub = dir + "/sub";
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getDir() {
+            return dir;
+        }
+
+        /**
+         * @return Quoted path of the main table, as used in the queries
+         */
+        public String getMain() {
+            return "`" + main + "`";
+        }
+
+        /**
+         * @return Quoted path of the sub table, as used in the queries
+         */
+        public String getSub() {
+            return "`" + sub + "`";
+        }
+
+        @Override
+        public String toString() {
+            return dir;
+        }
+    }
+}
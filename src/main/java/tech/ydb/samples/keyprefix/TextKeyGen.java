@@ -1,11 +1,12 @@
 package tech.ydb.samples.keyprefix;
 
 import java.nio.ByteBuffer;
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
 
 /**
  * Random text-format ID generator creates cache friendly identifiers to be used
@@ -39,6 +40,17 @@ public class TextKeyGen extends BaseKeyGen {
         super(prefixBits);
     }
 
+    /**
+     * Constructs the generator instance with the custom key layout.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param timestampBits Number of bits for the timestamp code
+     * @param timestampUnit Granularity of the timestamp code
+     */
+    public TextKeyGen(int prefixBits, int timestampBits, TimestampUnit timestampUnit) {
+        super(prefixBits, timestampBits, timestampUnit);
+    }
+
     /**
      * Generates the new ID with the specified prefix and instant (second
      * precision for the embedded timestamp field).
@@ -48,19 +60,28 @@ public class TextKeyGen extends BaseKeyGen {
      * @return Base64 encoded ID with the embedded prefix and timestamp.
      */
     public String nextValue(long prefix, Instant instant) {
-        SecureRandom ng = Holder.numberGenerator;
+        long msb = update(KeyRandom.nextLong(), prefix, instant);
+        return encode(msb, KeyRandom.nextLong());
+    }
+
+    private static String encode(long msb, long lsb) {
         byte[] data = new byte[16];
-        ng.nextBytes(data);
-
-        long msb = 0;
-        for (int i = 0; i < 8; i++) {
-            msb = (msb << 8) | (data[i] & 0xff);
-        }
-        msb = update(msb, prefix, instant);
-        ByteBuffer.wrap(data).putLong(msb);
-        return Base64.getUrlEncoder()
-                .encodeToString(data)
-                .substring(0, 22);
+        ByteBuffer.wrap(data).putLong(msb).putLong(lsb);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+    }
+
+    /**
+     * Generates the new ID with the specified prefix value and instant, taking
+     * the random bits from the specified random stream.
+     *
+     * @param prefix Prefix value, or -1 for the random prefix
+     * @param instant The instant which is embedded in the ID
+     * @param random Random stream to be used
+     * @return Base64 encoded ID with the embedded prefix and timestamp.
+     */
+    public String nextValue(long prefix, Instant instant, SplittableRandom random) {
+        long msb = update(random.nextLong(), prefix, instant);
+        return encode(msb, random.nextLong());
     }
 
     /**
@@ -114,4 +135,43 @@ public class TextKeyGen extends BaseKeyGen {
     public String nextValue() {
         return nextValue(-1L, Instant.now());
     }
+
+    /**
+     * @return Infinite stream of IDs with the random prefixes and the current
+     * timestamp
+     */
+    public Stream<String> stream() {
+        return stream(-1L, null);
+    }
+
+    /**
+     * @param prefix Prefix value
+     * @return Infinite stream of IDs with the fixed prefix and the current
+     * timestamp
+     */
+    public Stream<String> stream(long prefix) {
+        return stream(prefix, null);
+    }
+
+    /**
+     * @param instant The instant which is embedded in the IDs
+     * @return Infinite stream of IDs with the random prefixes and the fixed
+     * timestamp
+     */
+    public Stream<String> stream(Instant instant) {
+        return stream(-1L, instant);
+    }
+
+    /**
+     * Builds the infinite stream of IDs, which can be processed in parallel
+     * without contention on the shared random generator.
+     *
+     * @param prefix Prefix value, or -1 for the random prefix per ID
+     * @param instant The instant which is embedded in the IDs, or null for the
+     * current time
+     * @return Infinite stream of IDs
+     */
+    public Stream<String> stream(long prefix, Instant instant) {
+        return keyStream(random -> nextValue(prefix, instantOrNow(instant), random));
+    }
 }
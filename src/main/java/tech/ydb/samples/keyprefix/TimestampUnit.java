@@ -0,0 +1,68 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+
+/**
+ * Granularity of the timestamp code embedded into the generated keys.
+ *
+ * @author zinal
+ */
+public enum TimestampUnit {
+
+    SECONDS(1000L),
+    HUNDRED_MILLIS(100L),
+    MILLIS(1L);
+
+    private final long millis;
+
+    private TimestampUnit(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @return Duration of a single timestamp tick, in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Converts the instant to the number of units since the UNIX epoch,
+     * truncating the fractional part.
+     *
+     * @param instant The instant to be converted
+     * @return Number of whole units since the UNIX epoch
+     */
+    public long toTicks(Instant instant) {
+        switch (this) {
+            case SECONDS:
+                return instant.getEpochSecond();
+            case HUNDRED_MILLIS:
+                return instant.getEpochSecond() * 10L
+                        + (instant.getNano() / 100000000);
+            default:
+                return instant.toEpochMilli();
+        }
+    }
+
+    /**
+     * Parses the unit name, accepting also the short forms "s", "100ms" and
+     * "ms".
+     *
+     * @param v Unit name
+     * @return The unit
+     */
+    public static TimestampUnit parse(String v) {
+        String x = v.trim().toUpperCase();
+        switch (x) {
+            case "S":
+                return SECONDS;
+            case "100MS":
+                return HUNDRED_MILLIS;
+            case "MS":
+                return MILLIS;
+            default:
+                return TimestampUnit.valueOf(x);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing hash set of UUID values, stored as pairs of longs without
+ * the per-key objects.
+ *
+ * Linear probing over the single long array holding both halves of the keys,
+ * which takes 16 bytes per slot, and about 21-32 bytes per key depending on
+ * the fill. The all-zero key is used as the empty slot marker and tracked
+ * separately. Not thread safe.
+ *
+ * @author zinal
+ */
+public class UuidHashSet {
+
+    static final double MAX_LOAD = 0.75;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    public UuidHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expected Expected number of keys
+     */
+    public UuidHashSet(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return Number of the slots allocated
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean add(UUID v) {
+        return add(v.getMostSignificantBits(), v.getLeastSignificantBits());
+    }
+
+    /**
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @return true, if the key has been added, false if it was already there
+     */
+    public boolean add(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int pos = find(slots, mask, msb, lsb);
+        if (slots[2 * pos] != 0L || slots[2 * pos + 1] != 0L) {
+            return false;
+        }
+        slots[2 * pos] = msb;
+        slots[2 * pos + 1] = lsb;
+        if (++size > (mask + 1) * MAX_LOAD) {
+            rehash(2 * (mask + 1));
+        }
+        return true;
+    }
+
+    public boolean contains(UUID v) {
+        return contains(v.getMostSignificantBits(), v.getLeastSignificantBits());
+    }
+
+    public boolean contains(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            return hasZero;
+        }
+        int pos = find(slots, mask, msb, lsb);
+        return slots[2 * pos] != 0L || slots[2 * pos + 1] != 0L;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        size = 0;
+        hasZero = false;
+    }
+
+    /**
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @return Slot hash of the key
+     */
+    static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L + lsb;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return Capacity, as the power of two, to hold the keys at the maximal
+     * load factor
+     */
+    static int capacityFor(int expected) {
+        long need = (long) Math.ceil(Math.max(expected, 1) / MAX_LOAD) + 1L;
+        long cap = Long.highestOneBit(need - 1L) << 1;
+        if (cap > (1L << 30)) {
+            throw new IllegalArgumentException("Too many keys: " + expected);
+        }
+        return (int) Math.max(cap, 4L);
+    }
+
+    /**
+     * @return Slot holding the key, or the empty slot where it should go
+     */
+    private static int find(long[] slots, int mask, long msb, long lsb) {
+        int pos = hash(msb, lsb) & mask;
+        while (true) {
+            long m = slots[2 * pos];
+            long l = slots[2 * pos + 1];
+            if ((m == msb && l == lsb) || (m == 0L && l == 0L)) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.slots = new long[2 * capacity];
+        this.mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        allocate(capacity);
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0L || old[i + 1] != 0L) {
+                int pos = find(slots, mask, old[i], old[i + 1]);
+                slots[2 * pos] = old[i];
+                slots[2 * pos + 1] = old[i + 1];
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package tech.ydb.samples.keyprefix;
 
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Random UUID generator creates cache friendly identifiers to be used as
@@ -15,7 +16,10 @@ import java.util.UUID;
  * second-precision timestamp code of 30 bits, followed by the random suffix.
  *
  * The timestamp is UNIX epoch seconds, modulo 2^30 (about 34 years), which
- * avoids code reuse for well over 30 years from the overlap.
+ * avoids code reuse for well over 30 years from the overlap. The width and the
+ * unit of the timestamp field can be customized (for example, 100 ms or 1 ms
+ * ticks), which trades the wrap-around period for time ordering within the
+ * second.
  *
  * In addition, the generator supports the "fixed prefix" schema, in which a
  * common prefix value is used for a series of related ids generated (typically
@@ -26,10 +30,23 @@ import java.util.UUID;
  * This affects the actual ordering, so it is important to properly put the
  * bytes in the correct order.
  *
+ * In the optional sequential mode, the MSB bits below the timestamp field
+ * (except the version bits) hold the per-(prefix, second) monotonic counter
+ * instead of random data, so that the keys generated within the same prefix
+ * and second are ordered by generation time. The LSB stays fully random.
+ *
+ * The placement of the fields and the choice of the shared prefixes can be
+ * changed with the {@link KeyLayout}, for example to put the timestamp code
+ * first, as in UUIDv7.
+ *
  * @author zinal
  */
 public class UuidKeyGen extends BaseKeyGen {
 
+    private static final long VERSION_MASK = 0xF000L;
+
+    private final KeySequence sequence;
+
     /**
      * Constructs the generator instance with the default prefix size of 10
      * bits.
@@ -37,7 +54,7 @@ public class UuidKeyGen extends BaseKeyGen {
      * Works best for up to 1k table partitions.
      */
     public UuidKeyGen() {
-        super(10);
+        this(10, false);
     }
 
     /**
@@ -46,7 +63,63 @@ public class UuidKeyGen extends BaseKeyGen {
      * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
      */
     public UuidKeyGen(int prefixBits) {
-        super(prefixBits);
+        this(prefixBits, false);
+    }
+
+    /**
+     * Constructs the generator instance with the custom prefix size, and
+     * optionally enables the sequential mode.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param sequential true to use the per-(prefix, second) counter
+     */
+    public UuidKeyGen(int prefixBits, boolean sequential) {
+        this(prefixBits, TIMESTAMP_BITS, TimestampUnit.SECONDS, sequential);
+    }
+
+    /**
+     * Constructs the generator instance with the custom key layout.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param timestampBits Number of bits for the timestamp code
+     * @param timestampUnit Granularity of the timestamp code
+     * @param sequential true to use the per-(prefix, timestamp) counter
+     */
+    public UuidKeyGen(int prefixBits, int timestampBits,
+            TimestampUnit timestampUnit, boolean sequential) {
+        this(prefixBits, timestampBits, timestampUnit, sequential, KeyLayout.PREFIX);
+    }
+
+    /**
+     * Constructs the generator instance with the custom key layout and field
+     * placement.
+     *
+     * @param prefixBits Number of bits for the prefix, 1 to 18 bits.
+     * @param timestampBits Number of bits for the timestamp code
+     * @param timestampUnit Granularity of the timestamp code
+     * @param sequential true to use the per-(prefix, timestamp) counter
+     * @param layout Placement of the prefix and timestamp fields
+     */
+    public UuidKeyGen(int prefixBits, int timestampBits,
+            TimestampUnit timestampUnit, boolean sequential, KeyLayout layout) {
+        super(prefixBits, timestampBits, timestampUnit, layout);
+        this.sequence = sequential
+                ? new KeySequence(prefixBits, layoutLowBit(prefixBits, timestampBits) - 4)
+                : null;
+    }
+
+    /**
+     * @return true, if the sequential mode is enabled
+     */
+    public boolean isSequential() {
+        return sequence != null;
+    }
+
+    /**
+     * @return Counter state for the sequential mode, or null
+     */
+    public KeySequence getSequence() {
+        return sequence;
     }
 
     /**
@@ -63,33 +136,149 @@ public class UuidKeyGen extends BaseKeyGen {
 
     /**
      * Generates the new ID with the specified prefix value and instant
-     * (truncated to whole seconds for the embedded timestamp field).
+     * (truncated to whole timestamp units for the embedded timestamp field).
      *
      * @param prefix Prefix value
      * @param instant The instant whose second is embedded in the UUID
      * @return Random UUID with the embedded prefix, timestamp code and suffix.
      */
     public UUID nextValue(long prefix, Instant instant) {
-        SecureRandom ng = Holder.numberGenerator;
-        byte[] data = new byte[16];
-        ng.nextBytes(data);
-
-        data[6] &= 0x0f;
-        data[6] |= 0x80;
-        data[8] &= 0x3f;
-        data[8] |= (byte) 0x80;
-
-        long msb = 0;
-        long lsb = 0;
-        for (int i = 0; i < 8; i++) {
-            msb = (msb << 8) | (data[i] & 0xff);
+        long msb = KeyRandom.nextLong();
+        long lsb = KeyRandom.nextLong();
+        return makeValue(msb, lsb, prefix, instant);
+    }
+
+    /**
+     * Generates the new ID with the specified prefix value and instant, taking
+     * the random bits from the specified random stream. Used to produce the
+     * reproducible sequences of IDs.
+     *
+     * @param prefix Prefix value, or -1 for the random prefix
+     * @param instant The instant which is embedded in the UUID
+     * @param random Random stream to be used
+     * @return Random UUID with the embedded prefix, timestamp code and suffix.
+     */
+    public UUID nextValue(long prefix, Instant instant, SplittableRandom random) {
+        long msb = random.nextLong();
+        long lsb = random.nextLong();
+        return makeValue(msb, lsb, prefix, instant);
+    }
+
+    private UUID makeValue(long msb, long lsb, long prefix, Instant instant) {
+        return new UUID(makeMsb(msb, prefix, instant), makeLsb(lsb));
+    }
+
+    /**
+     * @return Java MSB of the key (after the byte reordering)
+     */
+    private long makeMsb(long msb, long prefix, Instant instant) {
+        if (prefix == -1L && layout == KeyLayout.BIT_REVERSED) {
+            prefix = activePrefix(nextCounterPrefix(), instant);
         }
-        for (int i = 8; i < 16; i++) {
-            lsb = (lsb << 8) | (data[i] & 0xff);
+        // version 8
+        msb = (msb & ~VERSION_MASK) | 0x8000L;
+        msb = update(msb, prefix, instant);
+        if (sequence != null) {
+            msb = applyCounter(msb, instant);
         }
+        return reorder(msb);
+    }
 
-        msb = update(msb, prefix, instant);
-        return new UUID(reorder(msb), lsb);
+    private static long makeLsb(long lsb) {
+        // variant 2
+        return (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    }
+
+    /**
+     * Generates the block of IDs into the arrays, without the UUID objects.
+     * Produces the same IDs as the series of
+     * {@link #nextValue(long, Instant, SplittableRandom)} calls. The random
+     * values are drawn first, and then the layout is applied to the whole
+     * block, which allows the vectorized implementation.
+     *
+     * @param msb Output array of the most significant bits, Java order
+     * @param lsb Output array of the least significant bits
+     * @param prefix Prefix value, or -1 for the random prefix per ID
+     * @param instant The instant which is embedded in the IDs
+     * @param random Random stream to be used
+     */
+    public void nextValues(long[] msb, long[] lsb, long prefix, Instant instant,
+            SplittableRandom random) {
+        if (msb.length != lsb.length) {
+            throw new IllegalArgumentException("Array lengths differ: "
+                    + msb.length + " and " + lsb.length);
+        }
+        for (int i = 0; i < msb.length; ++i) {
+            msb[i] = random.nextLong();
+            lsb[i] = random.nextLong();
+        }
+        if (sequence != null || (prefix == -1L
+                && (layout == KeyLayout.BIT_REVERSED || getRotationPrefixes() > 0))) {
+            // the sequence, the prefix counter and the rotation are per key
+            for (int i = 0; i < msb.length; ++i) {
+                msb[i] = makeMsb(msb[i], prefix, instant);
+                lsb[i] = makeLsb(lsb[i]);
+            }
+            return;
+        }
+        long tsMask = getTimestampMask();
+        long prefixMask = (prefix == -1L) ? 0L : getPrefixMask();
+        long msbKeep = ~(VERSION_MASK | prefixMask | tsMask);
+        long msbSet = 0x8000L | (applyPrefix(0L, prefix) & prefixMask)
+                | ((timestampCode(instant) << getTimestampLowBit()) & tsMask);
+        KeyBatch.apply(msb, lsb, msb.length, msbKeep, msbSet,
+                0x3FFFFFFFFFFFFFFFL, 0x8000000000000000L);
+    }
+
+    private long applyCounter(long msb, Instant instant) {
+        long counter = sequence.next(prefixOnTop(msb), timestampCode(instant));
+        if (counter < 0L) {
+            return msb;
+        }
+        // counter bits go around the version field
+        long mask = ((1L << getLayoutLowBit()) - 1L) & ~VERSION_MASK;
+        long bits = ((counter >>> 12) << 16) | (counter & 0xFFFL);
+        return (msb & ~mask) | (bits & mask);
+    }
+
+    /**
+     * Generates the new ID with the prefix derived from the affinity key, so
+     * that all the IDs generated for the key share the prefix, and the rows
+     * keyed by them colocate in one partition across transactions.
+     *
+     * @param affinityKey Affinity key, like the collection id
+     * @param instant The instant which is embedded in the UUID
+     * @return Random UUID with the embedded prefix, timestamp code and suffix.
+     * @see #prefixOf(UUID)
+     */
+    public UUID nextValue(UUID affinityKey, Instant instant) {
+        return nextValue(prefixOf(affinityKey), instant);
+    }
+
+    /**
+     * Generates the new ID with the prefix derived from the affinity key,
+     * taking the random bits from the specified random stream.
+     *
+     * @param affinityKey Affinity key, like the collection id
+     * @param instant The instant which is embedded in the UUID
+     * @param random Random stream to be used
+     * @return Random UUID with the embedded prefix, timestamp code and suffix.
+     */
+    public UUID nextValue(UUID affinityKey, Instant instant, SplittableRandom random) {
+        return nextValue(prefixOf(affinityKey), instant, random);
+    }
+
+    /**
+     * Generates the new ID with the prefix derived from the text affinity
+     * key, like the tenant name.
+     *
+     * @param affinityKey Affinity key
+     * @param instant The instant which is embedded in the UUID
+     * @return Random UUID with the embedded prefix, timestamp code and suffix.
+     * @see #prefixOf(CharSequence)
+     */
+    public UUID nextValue(CharSequence affinityKey, Instant instant) {
+        return nextValue(prefixOf(affinityKey), instant);
     }
 
     /**
@@ -130,4 +319,109 @@ public class UuidKeyGen extends BaseKeyGen {
         return nextValue(-1L, Instant.now());
     }
 
+    /**
+     * @return Infinite stream of IDs with the random prefixes and the current
+     * timestamp
+     */
+    public Stream<UUID> stream() {
+        return stream(-1L, null);
+    }
+
+    /**
+     * @param prefix Prefix value
+     * @return Infinite stream of IDs with the fixed prefix and the current
+     * timestamp
+     */
+    public Stream<UUID> stream(long prefix) {
+        return stream(prefix, null);
+    }
+
+    /**
+     * @param instant The instant which is embedded in the IDs
+     * @return Infinite stream of IDs with the random prefixes and the fixed
+     * timestamp
+     */
+    public Stream<UUID> stream(Instant instant) {
+        return stream(-1L, instant);
+    }
+
+    /**
+     * Builds the infinite stream of IDs, which can be processed in parallel
+     * without contention on the shared random generator.
+     *
+     * @param prefix Prefix value, or -1 for the random prefix per ID
+     * @param instant The instant which is embedded in the IDs, or null for the
+     * current time
+     * @return Infinite stream of IDs
+     */
+    public Stream<UUID> stream(long prefix, Instant instant) {
+        return keyStream(random -> nextValue(prefix, instantOrNow(instant), random));
+    }
+
+    /**
+     * Primitive variant of {@link #stream(long, Instant)}: the infinite
+     * stream of blocks of IDs held in long arrays.
+     *
+     * @param blockSize Number of IDs per block
+     * @param prefix Prefix value, or -1 for the random prefix per ID
+     * @param instant The instant which is embedded in the IDs, or null for the
+     * current time
+     * @return Infinite stream of blocks
+     */
+    public Stream<Block> blocks(int blockSize, long prefix, Instant instant) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+        return keyStream(random -> {
+            Block b = new Block(blockSize);
+            nextValues(b.msb, b.lsb, prefix, instantOrNow(instant), random);
+            return b;
+        });
+    }
+
+    /**
+     * Block of IDs as the arrays of MSB and LSB values, in Java order.
+     */
+    public static final class Block {
+
+        private final long[] msb;
+        private final long[] lsb;
+
+        Block(int size) {
+            this.msb = new long[size];
+            this.lsb = new long[size];
+        }
+
+        public int size() {
+            return msb.length;
+        }
+
+        public long[] getMsb() {
+            return msb;
+        }
+
+        public long[] getLsb() {
+            return lsb;
+        }
+
+        public UUID get(int index) {
+            return new UUID(msb[index], lsb[index]);
+        }
+    }
+
+    /**
+     * Computes the primary key range bound for the specified prefix and
+     * instant. The keys generated with the prefix specified and any instant
+     * starting from the timestamp unit of the instant are greater or equal to
+     * the bound, in YDB ordering. The keys generated with earlier instants are
+     * less than the bound (unless the timestamp code wraps around).
+     *
+     * @param prefix Prefix value
+     * @param instant The instant whose timestamp unit is used for the bound
+     * @return UUID value to be used as the key range bound
+     */
+    public UUID rangeBound(long prefix, Instant instant) {
+        return new UUID(reorder(rangeBoundBits(prefix, instant)), 0L);
+    }
+
 }
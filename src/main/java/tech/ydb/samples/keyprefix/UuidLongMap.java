@@ -0,0 +1,189 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing hash map from UUID values to primitive longs, for the
+ * counters, offsets and timestamps attached to the generated keys.
+ *
+ * Same layout as {@link UuidHashSet}, with the values held in the separate
+ * array, which makes 24 bytes per slot. The all-zero key is the empty slot
+ * marker, and its value is kept aside. Not thread safe.
+ *
+ * @author zinal
+ */
+public class UuidLongMap {
+
+    private final long missing;
+    private long[] slots;
+    private long[] values;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private long zeroValue;
+
+    /**
+     * @param expected Expected number of keys
+     * @param missing Value returned for the keys not in the map
+     */
+    public UuidLongMap(int expected, long missing) {
+        this.missing = missing;
+        allocate(UuidHashSet.capacityFor(expected));
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public long get(UUID k) {
+        return get(k.getMostSignificantBits(), k.getLeastSignificantBits());
+    }
+
+    /**
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @return The value for the key, or the "missing" value
+     */
+    public long get(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            return hasZero ? zeroValue : missing;
+        }
+        int pos = find(slots, mask, msb, lsb);
+        return isFree(slots, pos) ? missing : values[pos];
+    }
+
+    public boolean containsKey(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            return hasZero;
+        }
+        return !isFree(slots, find(slots, mask, msb, lsb));
+    }
+
+    public long put(UUID k, long v) {
+        return put(k.getMostSignificantBits(), k.getLeastSignificantBits(), v);
+    }
+
+    /**
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @param v New value
+     * @return The previous value for the key, or the "missing" value
+     */
+    public long put(long msb, long lsb, long v) {
+        if (msb == 0L && lsb == 0L) {
+            long prev = hasZero ? zeroValue : missing;
+            hasZero = true;
+            zeroValue = v;
+            return prev;
+        }
+        int pos = find(slots, mask, msb, lsb);
+        if (!isFree(slots, pos)) {
+            long prev = values[pos];
+            values[pos] = v;
+            return prev;
+        }
+        slots[2 * pos] = msb;
+        slots[2 * pos + 1] = lsb;
+        values[pos] = v;
+        if (++size > (mask + 1) * UuidHashSet.MAX_LOAD) {
+            rehash(2 * (mask + 1));
+        }
+        return missing;
+    }
+
+    /**
+     * Adds the delta to the value of the key, treating the absent key as zero.
+     *
+     * @param msb Most significant bits of the key
+     * @param lsb Least significant bits of the key
+     * @param delta Value to be added
+     * @return The updated value
+     */
+    public long addTo(long msb, long lsb, long delta) {
+        if (msb == 0L && lsb == 0L) {
+            zeroValue = (hasZero ? zeroValue : 0L) + delta;
+            hasZero = true;
+            return zeroValue;
+        }
+        int pos = find(slots, mask, msb, lsb);
+        if (!isFree(slots, pos)) {
+            values[pos] += delta;
+            return values[pos];
+        }
+        put(msb, lsb, delta);
+        return delta;
+    }
+
+    /**
+     * Visits all entries of the map, in no particular order.
+     *
+     * @param consumer Entry consumer
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasZero) {
+            consumer.accept(0L, 0L, zeroValue);
+        }
+        for (int pos = 0; pos <= mask; ++pos) {
+            if (!isFree(slots, pos)) {
+                consumer.accept(slots[2 * pos], slots[2 * pos + 1], values[pos]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        size = 0;
+        hasZero = false;
+    }
+
+    private static boolean isFree(long[] slots, int pos) {
+        return slots[2 * pos] == 0L && slots[2 * pos + 1] == 0L;
+    }
+
+    private static int find(long[] slots, int mask, long msb, long lsb) {
+        int pos = UuidHashSet.hash(msb, lsb) & mask;
+        while (true) {
+            long m = slots[2 * pos];
+            long l = slots[2 * pos + 1];
+            if ((m == msb && l == lsb) || (m == 0L && l == 0L)) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.slots = new long[2 * capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldSlots = slots;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (!isFree(oldSlots, i)) {
+                long msb = oldSlots[2 * i];
+                long lsb = oldSlots[2 * i + 1];
+                int pos = find(slots, mask, msb, lsb);
+                slots[2 * pos] = msb;
+                slots[2 * pos + 1] = lsb;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Receives the map entries.
+     */
+    public interface EntryConsumer {
+
+        void accept(long msb, long lsb, long value);
+    }
+}
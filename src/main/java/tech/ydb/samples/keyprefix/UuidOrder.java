@@ -0,0 +1,126 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Ordering of UUID values as YDB orders the Uuid columns, which differs from
+ * {@link UUID#compareTo(UUID)}.
+ *
+ * YDB compares the logical bytes of the value, so the MSB is compared after
+ * {@link BaseKeyGen#reorder(long)}, and both halves are compared unsigned.
+ * The radix sort orders the parallel msb/lsb arrays by the same rule, which
+ * allows to send the batches to the server as the sequential key streams.
+ *
+ * @author zinal
+ */
+public final class UuidOrder {
+
+    /**
+     * Comparator matching the YDB ordering.
+     */
+    public static final Comparator<UUID> YDB = (a, b) -> compare(
+            a.getMostSignificantBits(), a.getLeastSignificantBits(),
+            b.getMostSignificantBits(), b.getLeastSignificantBits());
+
+    private static final int DIGIT_BITS = 8;
+    private static final int DIGITS = 1 << DIGIT_BITS;
+
+    private UuidOrder() {
+    }
+
+    /**
+     * Compares two values given as Java MSB and LSB.
+     *
+     * @return Negative, zero or positive, as the first value is less, equal
+     * or greater than the second one in YDB order
+     */
+    public static int compare(long msb1, long lsb1, long msb2, long lsb2) {
+        if (msb1 != msb2) {
+            return Long.compareUnsigned(BaseKeyGen.reorder(msb1), BaseKeyGen.reorder(msb2));
+        }
+        return Long.compareUnsigned(lsb1, lsb2);
+    }
+
+    /**
+     * Sorts the values in place, in YDB order.
+     *
+     * @param msb Most significant bits of the values, Java order
+     * @param lsb Least significant bits of the values
+     */
+    public static void sort(long[] msb, long[] lsb) {
+        int[] order = sortOrder(msb, lsb);
+        long[] m = msb.clone();
+        long[] l = lsb.clone();
+        for (int i = 0; i < order.length; ++i) {
+            msb[i] = m[order[i]];
+            lsb[i] = l[order[i]];
+        }
+    }
+
+    /**
+     * Computes the permutation which sorts the values in YDB order, without
+     * changing the input. LSD radix sort by 8-bit digits, with the passes
+     * skipped where all values have the same digit (the prefix and timestamp
+     * bits of the batch generated with the shared prefix). The sort is
+     * stable.
+     *
+     * @param msb Most significant bits of the values, Java order
+     * @param lsb Least significant bits of the values
+     * @return Positions of the input values, in the sorted order
+     */
+    public static int[] sortOrder(long[] msb, long[] lsb) {
+        final int n = msb.length;
+        if (lsb.length != n) {
+            throw new IllegalArgumentException("Array lengths differ: "
+                    + n + " and " + lsb.length);
+        }
+        long[] hi = new long[n];
+        long[] lo = lsb.clone();
+        int[] idx = new int[n];
+        for (int i = 0; i < n; ++i) {
+            hi[i] = BaseKeyGen.reorder(msb[i]);
+            idx[i] = i;
+        }
+        long[] hi2 = new long[n];
+        long[] lo2 = new long[n];
+        int[] idx2 = new int[n];
+        int[] count = new int[DIGITS];
+        // least significant digits first: the LSB, then the logical MSB
+        for (int pass = 0; pass < 128 / DIGIT_BITS; ++pass) {
+            boolean high = pass >= 64 / DIGIT_BITS;
+            int shift = (pass % (64 / DIGIT_BITS)) * DIGIT_BITS;
+            long[] key = high ? hi : lo;
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; ++i) {
+                count[(int) (key[i] >>> shift) & (DIGITS - 1)]++;
+            }
+            if (n == 0 || count[(int) (key[0] >>> shift) & (DIGITS - 1)] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < DIGITS; ++d) {
+                int c = count[d];
+                count[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; ++i) {
+                int pos = count[(int) (key[i] >>> shift) & (DIGITS - 1)]++;
+                hi2[pos] = hi[i];
+                lo2[pos] = lo[i];
+                idx2[pos] = idx[i];
+            }
+            long[] tl = hi;
+            hi = hi2;
+            hi2 = tl;
+            tl = lo;
+            lo = lo2;
+            lo2 = tl;
+            int[] ti = idx;
+            idx = idx2;
+            idx2 = ti;
+        }
+        return idx;
+    }
+}
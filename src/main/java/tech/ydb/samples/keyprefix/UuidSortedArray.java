@@ -0,0 +1,300 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Immutable sorted array of distinct UUID values, held off-heap at exactly
+ * 16 bytes per key, and ordered the way YDB orders the Uuid columns.
+ *
+ * The keys are stored in the logical byte order (after
+ * {@link BaseKeyGen#reorder(long)} of the MSB), so that the unsigned
+ * comparison of the MSB, then of the LSB, gives the YDB order. The API
+ * accepts and returns the regular Java UUID values.
+ *
+ * @author zinal
+ */
+public class UuidSortedArray implements Iterable<UUID> {
+
+    private static final int INSERTION_SORT_LIMIT = 16;
+
+    private final LongBuffer data;
+    private final int size;
+
+    private UuidSortedArray(LongBuffer data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Off-heap memory used, in bytes
+     */
+    public long memoryBytes() {
+        return 8L * data.capacity();
+    }
+
+    /**
+     * @param index Position within the array
+     * @return The key at the position specified
+     */
+    public UUID get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return new UUID(BaseKeyGen.reorder(data.get(2 * index)), data.get(2 * index + 1));
+    }
+
+    public boolean contains(UUID v) {
+        return indexOf(v) >= 0;
+    }
+
+    /**
+     * Binary search for the key, with the same contract as
+     * {@link java.util.Arrays#binarySearch(long[], long)}.
+     *
+     * @param v The key
+     * @return Position of the key, or (-(insertion point) - 1) if not found
+     */
+    public int indexOf(UUID v) {
+        long msb = BaseKeyGen.reorder(v.getMostSignificantBits());
+        long lsb = v.getLeastSignificantBits();
+        int pos = lowerBound(msb, lsb);
+        if (pos < size && data.get(2 * pos) == msb && data.get(2 * pos + 1) == lsb) {
+            return pos;
+        }
+        return -pos - 1;
+    }
+
+    /**
+     * @param v The key
+     * @return Position of the first key greater or equal to the specified one
+     */
+    public int lowerBound(UUID v) {
+        return lowerBound(BaseKeyGen.reorder(v.getMostSignificantBits()),
+                v.getLeastSignificantBits());
+    }
+
+    /**
+     * Visits the keys within the range in YDB order.
+     *
+     * @param from Lower bound, inclusive, or null for the first key
+     * @param till Upper bound, exclusive, or null for the end of the array
+     * @param consumer Receives the MSB and LSB of each key, Java order
+     * @return Number of the keys visited
+     */
+    public int forEachInRange(UUID from, UUID till, KeyConsumer consumer) {
+        int start = (from == null) ? 0 : lowerBound(from);
+        int end = (till == null) ? size : lowerBound(till);
+        for (int i = start; i < end; ++i) {
+            consumer.accept(BaseKeyGen.reorder(data.get(2 * i)), data.get(2 * i + 1));
+        }
+        return Math.max(0, end - start);
+    }
+
+    /**
+     * @param from Lower bound, inclusive, or null for the first key
+     * @param till Upper bound, exclusive, or null for the end of the array
+     * @return Iterator over the keys within the range, in YDB order
+     */
+    public Iterator<UUID> range(UUID from, UUID till) {
+        final int start = (from == null) ? 0 : lowerBound(from);
+        final int end = (till == null) ? size : lowerBound(till);
+        return new Iterator<UUID>() {
+            private int pos = start;
+
+            @Override
+            public boolean hasNext() {
+                return pos < end;
+            }
+
+            @Override
+            public UUID next() {
+                if (pos >= end) {
+                    throw new NoSuchElementException();
+                }
+                return get(pos++);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<UUID> iterator() {
+        return range(null, null);
+    }
+
+    private int lowerBound(long msb, long lsb) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(data, mid, msb, lsb) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int compare(LongBuffer lb, int i, long msb, long lsb) {
+        int cmp = Long.compareUnsigned(lb.get(2 * i), msb);
+        return (cmp != 0) ? cmp : Long.compareUnsigned(lb.get(2 * i + 1), lsb);
+    }
+
+    private static int compare(LongBuffer lb, int i, int j) {
+        return compare(lb, i, lb.get(2 * j), lb.get(2 * j + 1));
+    }
+
+    private static void swap(LongBuffer lb, int i, int j) {
+        long m = lb.get(2 * i);
+        long l = lb.get(2 * i + 1);
+        lb.put(2 * i, lb.get(2 * j));
+        lb.put(2 * i + 1, lb.get(2 * j + 1));
+        lb.put(2 * j, m);
+        lb.put(2 * j + 1, l);
+    }
+
+    /**
+     * In-place quicksort of the key pairs, median-of-three pivot.
+     */
+    static void sort(LongBuffer lb, int from, int to) {
+        while (to - from > INSERTION_SORT_LIMIT) {
+            int mid = (from + to) >>> 1;
+            int last = to - 1;
+            if (compare(lb, mid, from) < 0) {
+                swap(lb, mid, from);
+            }
+            if (compare(lb, last, from) < 0) {
+                swap(lb, last, from);
+            }
+            if (compare(lb, last, mid) < 0) {
+                swap(lb, last, mid);
+            }
+            long pm = lb.get(2 * mid);
+            long pl = lb.get(2 * mid + 1);
+            int i = from;
+            int j = last;
+            while (i <= j) {
+                while (compare(lb, i, pm, pl) < 0) {
+                    ++i;
+                }
+                while (compare(lb, j, pm, pl) > 0) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(lb, i++, j--);
+                }
+            }
+            // recurse into the smaller part to bound the stack depth
+            if (j - from < to - i) {
+                sort(lb, from, j + 1);
+                from = i;
+            } else {
+                sort(lb, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; ++i) {
+            for (int j = i; j > from && compare(lb, j, j - 1) < 0; --j) {
+                swap(lb, j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Receives the keys as pairs of longs.
+     */
+    public interface KeyConsumer {
+
+        void accept(long msb, long lsb);
+    }
+
+    /**
+     * Collects the keys in any order, then sorts them and removes the
+     * duplicates. The off-heap buffer grows by doubling while collecting.
+     */
+    public static class Builder {
+
+        private LongBuffer data;
+        private int size;
+
+        /**
+         * @param expected Expected number of keys
+         */
+        public Builder(int expected) {
+            this.data = allocate(Math.max(expected, 16));
+        }
+
+        public Builder add(UUID v) {
+            return add(v.getMostSignificantBits(), v.getLeastSignificantBits());
+        }
+
+        /**
+         * @param msb Most significant bits of the key, Java order
+         * @param lsb Least significant bits of the key
+         * @return this
+         */
+        public Builder add(long msb, long lsb) {
+            if (2 * size == data.capacity()) {
+                LongBuffer grown = allocate(2 * size);
+                data.position(0).limit(2 * size);
+                grown.put(data).clear();
+                data = grown;
+            }
+            data.put(2 * size, BaseKeyGen.reorder(msb));
+            data.put(2 * size + 1, lsb);
+            ++size;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Sorts the collected keys. The builder must not be used afterwards.
+         *
+         * @return The sorted array of distinct keys
+         */
+        public UuidSortedArray build() {
+            LongBuffer lb = data;
+            data = null;
+            sort(lb, 0, size);
+            int count = 0;
+            for (int i = 0; i < size; ++i) {
+                if (count > 0 && compare(lb, count - 1, i) == 0) {
+                    continue;
+                }
+                if (count != i) {
+                    lb.put(2 * count, lb.get(2 * i));
+                    lb.put(2 * count + 1, lb.get(2 * i + 1));
+                }
+                ++count;
+            }
+            if (lb.capacity() > 2 * count + 2 * count / 8) {
+                // trim the slack left by the growth and the duplicates
+                LongBuffer exact = allocate(count);
+                lb.position(0).limit(2 * count);
+                exact.put(lb).clear();
+                lb = exact;
+            }
+            return new UuidSortedArray(lb, count);
+        }
+
+        private static LongBuffer allocate(int keys) {
+            if (keys > Integer.MAX_VALUE / 16) {
+                throw new IllegalArgumentException("Too many keys: " + keys);
+            }
+            return ByteBuffer.allocateDirect(16 * keys)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Group of the client processes running the single workload, coordinated
+ * through the shared directory.
+ *
+ * Each process claims its worker number by taking the exclusive lock on the
+ * corresponding lease file, held for the process lifetime, and released
+ * automatically if the process dies. The processes then wait on the start
+ * barrier, run their share of the work, and publish the collected
+ * statistics. The worker number 0 acts as the coordinator: it waits for the
+ * statistics of all workers, merges them, and removes the files of the run.
+ *
+ * The files left by an aborted run must not let the next run pass the
+ * barrier early or merge the old statistics. Each worker writes the random
+ * token of its run into its "ready" marker. The coordinator removes the old
+ * statistics, accepts only the markers of the workers holding their leases,
+ * and then writes the "start" file listing the accepted tokens; the other
+ * workers start once their own token is listed there. The marker and
+ * statistics files are also removed when the group is closed.
+ *
+ * @author zinal
+ */
+public class WorkerGroup implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 200L;
+    private static final int CLAIM_ATTEMPTS = 5;
+
+    private final Path dir;
+    private final String run;
+    private final int workers;
+    private final int index;
+    private final String token = UUID.randomUUID().toString();
+    private final FileChannel leaseChannel;
+    private final FileLock lease;
+
+    /**
+     * Claims the first free worker number in the group.
+     *
+     * @param dir Shared directory
+     * @param run Run name, used as the prefix for the coordination files
+     * @param workers Number of processes in the group
+     * @throws IOException on file access error, or if all worker numbers are taken
+     */
+    public WorkerGroup(Path dir, String run, int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Illegal worker count: " + workers);
+        }
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.run = run;
+        this.workers = workers;
+        // the coordinator may be probing a free lease at the moment
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; ++attempt) {
+            if (attempt > 0) {
+                pause();
+            }
+            for (int i = 0; i < workers; ++i) {
+                FileChannel fc = FileChannel.open(file("lease", i),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = tryLock(fc);
+                if (lock != null) {
+                    this.index = i;
+                    this.leaseChannel = fc;
+                    this.lease = lock;
+                    // left by the previous holder of the lease
+                    Files.deleteIfExists(file("ready", i));
+                    return;
+                }
+                fc.close();
+            }
+        }
+        throw new IOException("All " + workers + " worker leases of run "
+                + run + " are taken in " + dir);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public boolean isCoordinator() {
+        return index == 0;
+    }
+
+    /**
+     * @param item Sequential number of the work item
+     * @return true, if the work item belongs to the current worker
+     */
+    public boolean owns(long item) {
+        return Math.floorMod(item, (long) workers) == index;
+    }
+
+    /**
+     * @param total Total amount of work
+     * @return The share of the current worker, remainder going to the lower
+     * worker numbers
+     */
+    public long shareOf(long total) {
+        return total / workers + ((index < total % workers) ? 1L : 0L);
+    }
+
+    /**
+     * Marks the current worker as ready, and waits for all workers to become
+     * ready.
+     *
+     * @param timeout Maximal wait time
+     * @throws IOException on file access error or timeout
+     */
+    public void awaitStart(Duration timeout) throws IOException {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        if (isCoordinator()) {
+            Files.deleteIfExists(startFile());
+            for (int i = 0; i < workers; ++i) {
+                Files.deleteIfExists(file("stats", i));
+            }
+        }
+        writeAtomic(file("ready", index), token);
+        if (isCoordinator()) {
+            List<String> tokens = awaitReady(deadline);
+            writeAtomic(startFile(), String.join("\n", tokens));
+            return;
+        }
+        while (!readLines(startFile()).contains(token)) {
+            checkDeadline(deadline, "the coordinator to start");
+            pause();
+        }
+    }
+
+    /**
+     * Publishes the statistics of the current worker.
+     *
+     * @param stats Statistics to be published
+     * @throws IOException on write error
+     */
+    public void publish(List<LatencyStats> stats) throws IOException {
+        Path target = file("stats", index);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(temp);
+                DataOutputStream dos = new DataOutputStream(os)) {
+            dos.writeInt(stats.size());
+            for (LatencyStats ls : stats) {
+                ls.writeTo(dos);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Waits for the statistics of all workers, and reads them. Only makes
+     * sense for the coordinator, which then removes the files of the run.
+     *
+     * @param timeout Maximal wait time
+     * @return Statistics published by each worker, by worker number
+     * @throws IOException on read error or timeout
+     */
+    public List<List<LatencyStats>> collect(Duration timeout) throws IOException {
+        try {
+            awaitStats(System.currentTimeMillis() + timeout.toMillis());
+            List<List<LatencyStats>> output = new ArrayList<>(workers);
+            for (int i = 0; i < workers; ++i) {
+                try (InputStream is = Files.newInputStream(file("stats", i));
+                        DataInputStream dis = new DataInputStream(is)) {
+                    int count = dis.readInt();
+                    List<LatencyStats> items = new ArrayList<>(count);
+                    for (int k = 0; k < count; ++k) {
+                        items.add(LatencyStats.readFrom(dis));
+                    }
+                    output.add(items);
+                }
+            }
+            return output;
+        } finally {
+            clearRun();
+        }
+    }
+
+    /**
+     * Merges the statistics of all workers by name.
+     *
+     * @param parts Statistics of each worker
+     * @return Merged statistics, in the order of first appearance
+     */
+    public static List<LatencyStats> merge(List<List<LatencyStats>> parts) {
+        List<LatencyStats> output = new ArrayList<>();
+        for (List<LatencyStats> part : parts) {
+            for (LatencyStats ls : part) {
+                LatencyStats target = null;
+                for (LatencyStats x : output) {
+                    if (x.getName().equals(ls.getName())) {
+                        target = x;
+                        break;
+                    }
+                }
+                if (target == null) {
+                    target = new LatencyStats(ls.getName());
+                    output.add(target);
+                }
+                target.merge(ls);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Waits for the ready markers of all workers, dropping the markers of
+     * the workers not holding their leases.
+     *
+     * @return Tokens of the ready workers
+     */
+    private List<String> awaitReady(long deadline) throws IOException {
+        while (true) {
+            List<String> tokens = new ArrayList<>(workers);
+            for (int i = 0; i < workers; ++i) {
+                List<String> lines = readLines(file("ready", i));
+                if (!lines.isEmpty() && (i == index || isLeaseHeld(i))) {
+                    tokens.add(lines.get(0));
+                }
+            }
+            if (tokens.size() == workers) {
+                return tokens;
+            }
+            checkDeadline(deadline, (workers - tokens.size()) + " worker(s) to become ready");
+            pause();
+        }
+    }
+
+    private void awaitStats(long deadline) throws IOException {
+        while (true) {
+            int missing = 0;
+            for (int i = 0; i < workers; ++i) {
+                if (!Files.exists(file("stats", i))) {
+                    ++missing;
+                }
+            }
+            if (missing == 0) {
+                return;
+            }
+            checkDeadline(deadline, missing + " worker(s) to publish the statistics");
+            pause();
+        }
+    }
+
+    /**
+     * Checks whether the worker holds its lease. The ready marker of the
+     * worker without the lease is left by an aborted run, and is removed
+     * while the lease is probed, so that the starting worker cannot write
+     * its marker meanwhile.
+     */
+    private boolean isLeaseHeld(int worker) throws IOException {
+        try (FileChannel fc = FileChannel.open(file("lease", worker),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = tryLock(fc);
+            if (lock == null) {
+                return true;
+            }
+            try {
+                Files.deleteIfExists(file("ready", worker));
+            } finally {
+                lock.release();
+            }
+            return false;
+        }
+    }
+
+    private void checkDeadline(long deadline, String what) throws IOException {
+        if (System.currentTimeMillis() > deadline) {
+            throw new IOException("Timed out waiting for " + what + " in run " + run);
+        }
+    }
+
+    private void clearRun() throws IOException {
+        Files.deleteIfExists(startFile());
+        for (int i = 0; i < workers; ++i) {
+            Files.deleteIfExists(file("stats", i));
+            Files.deleteIfExists(file("ready", i));
+        }
+    }
+
+    private void writeAtomic(Path target, String text) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> readLines(Path path) throws IOException {
+        try {
+            return Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException nsfe) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static FileLock tryLock(FileChannel fc) throws IOException {
+        try {
+            return fc.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            // held by another group in the same JVM
+            return null;
+        }
+    }
+
+    private static void pause() throws IOException {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException ix) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the workers", ix);
+        }
+    }
+
+    private Path startFile() {
+        return dir.resolve(run + "-start");
+    }
+
+    private Path file(String kind, int worker) {
+        return dir.resolve(run + "-" + kind + "-" + worker);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (isCoordinator()) {
+                clearRun();
+            } else {
+                // the statistics are kept for the coordinator
+                Files.deleteIfExists(file("ready", index));
+            }
+        } finally {
+            try {
+                lease.release();
+            } finally {
+                leaseChannel.close();
+            }
+        }
+    }
+}
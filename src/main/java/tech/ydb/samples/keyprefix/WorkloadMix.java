@@ -0,0 +1,174 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted mix of TEST operations.
+ *
+ * The mix is defined as the comma-separated list of entries in the form
+ * {@code operation:weight[:thinkMillis]}, for example
+ * {@code "INDEX:4, BYID:10, BYCOLL:5, INSERT:2:50"}. Each TEST iteration picks
+ * one operation with the probability proportional to its weight, and then
+ * sleeps for the think time of that operation.
+ *
+ * @author zinal
+ */
+public class WorkloadMix {
+
+    /**
+     * Operation types supported in the TEST workload.
+     */
+    public enum Op {
+        /**
+         * Time range read through the ix_tv index and joins.
+         */
+        INDEX,
+        /**
+         * Time range read through the primary key ranges.
+         */
+        PKRANGE,
+        /**
+         * Point lookup by the primary key.
+         */
+        BYID,
+        /**
+         * Lookup by collection_id through the ix_coll index.
+         */
+        BYCOLL,
+        /**
+         * Insert of the batch of rows sharing the key prefix.
+         */
+        INSERT
+    }
+
+    private final List<Entry> entries;
+    private final int[] cumulative;
+    private final int totalWeight;
+
+    public WorkloadMix(List<Entry> entries) {
+        ArrayList<Entry> temp = new ArrayList<>();
+        for (Entry e : entries) {
+            if (e.getWeight() > 0) {
+                temp.add(e);
+            }
+        }
+        if (temp.isEmpty()) {
+            throw new IllegalArgumentException("Empty workload mix");
+        }
+        this.entries = Collections.unmodifiableList(temp);
+        this.cumulative = new int[temp.size()];
+        int total = 0;
+        for (int i = 0; i < temp.size(); ++i) {
+            total += temp.get(i).getWeight();
+            cumulative[i] = total;
+        }
+        this.totalWeight = total;
+    }
+
+    /**
+     * Parses the workload mix definition.
+     *
+     * @param spec Mix definition text
+     * @return Parsed workload mix
+     */
+    public static WorkloadMix parse(String spec) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            item = item.trim();
+            if (item.length() == 0) {
+                continue;
+            }
+            String[] parts = item.split(":");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Illegal workload mix entry: " + item);
+            }
+            Op op = Op.valueOf(parts[0].trim().toUpperCase());
+            int weight = Integer.parseInt(parts[1].trim());
+            long think = (parts.length > 2) ? Long.parseLong(parts[2].trim()) : 0L;
+            entries.add(new Entry(op, weight, think));
+        }
+        return new WorkloadMix(entries);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @param op Operation type
+     * @return true, if the mix contains the operation specified
+     */
+    public boolean contains(Op op) {
+        for (Entry e : entries) {
+            if (e.getOp() == op) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the next operation to be executed.
+     *
+     * @param random Random stream to be used
+     * @return Selected entry
+     */
+    public Entry next(SplittableRandom random) {
+        int v = random.nextInt(totalWeight);
+        int lo = 0;
+        int hi = cumulative.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] > v) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return entries.get(lo);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : entries) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(e.getOp()).append(':').append(e.getWeight())
+                    .append(':').append(e.getThinkMillis());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Single operation within the mix.
+     */
+    public static final class Entry {
+
+        private final Op op;
+        private final int weight;
+        private final long thinkMillis;
+
+        public Entry(Op op, int weight, long thinkMillis) {
+            this.op = op;
+            this.weight = weight;
+            this.thinkMillis = thinkMillis;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public long getThinkMillis() {
+            return thinkMillis;
+        }
+    }
+}
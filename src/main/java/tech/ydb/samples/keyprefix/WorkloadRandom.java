@@ -0,0 +1,95 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Source of random streams for the workload generation.
+ *
+ * In the seeded mode, each unit of work (FILL day, step and table pair, TEST
+ * worker) gets its own random stream derived from the base seed and the unit
+ * coordinates, so the generated data does not depend on the thread
+ * scheduling, and the re-runs produce the same logical rows and query
+ * parameters. Without the seed, every stream is seeded independently.
+ *
+ * @author zinal
+ */
+public class WorkloadRandom {
+
+    private static final long DOMAIN_FILL = 0x46494c4cL;
+    private static final long DOMAIN_TEST = 0x54455354L;
+
+    private final Long seed;
+
+    /**
+     * @param seed Base seed, or null for the non-deterministic mode
+     */
+    public WorkloadRandom(Long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isSeeded() {
+        return seed != null;
+    }
+
+    /**
+     * @param day FILL day
+     * @param step Step number within the day
+     * @return Random stream for the FILL step
+     */
+    public SplittableRandom forStep(LocalDate day, int step) {
+        if (seed == null) {
+            return new SplittableRandom();
+        }
+        return new SplittableRandom(mix(seed, DOMAIN_FILL, day.toEpochDay(), step));
+    }
+
+    /**
+     * @param day FILL day
+     * @param step Step number within the day
+     * @param table Table pair number, the first pair gets the same stream as
+     * {@link #forStep(LocalDate, int)}
+     * @return Random stream for the FILL step of the table pair
+     */
+    public SplittableRandom forStep(LocalDate day, int step, int table) {
+        if (table == 0) {
+            return forStep(day, step);
+        }
+        if (seed == null) {
+            return new SplittableRandom();
+        }
+        return new SplittableRandom(mix(seed, DOMAIN_FILL, day.toEpochDay(), step, table));
+    }
+
+    /**
+     * @param worker TEST worker number
+     * @return Random stream for the TEST worker
+     */
+    public SplittableRandom forWorker(int worker) {
+        if (seed == null) {
+            return new SplittableRandom();
+        }
+        return new SplittableRandom(mix(seed, DOMAIN_TEST, worker));
+    }
+
+    /**
+     * Combines the values into a single well-mixed seed, applying the
+     * SplitMix64 finalizer after each value.
+     *
+     * @param values Values to be combined
+     * @return Derived seed
+     */
+    static long mix(long... values) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long v : values) {
+            h = mix64(h ^ v) + 0x9E3779B97F4A7C15L;
+        }
+        return mix64(h);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
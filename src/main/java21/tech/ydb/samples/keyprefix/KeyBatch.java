@@ -0,0 +1,85 @@
+package tech.ydb.samples.keyprefix;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bulk application of the key layout to the blocks of random values.
+ *
+ * Java 21 variant: processes the lanes of keys at once with the Vector API,
+ * with the byte reordering done as four lane-wise shifts. The Vector API is
+ * an incubator module, so it is only used when the JVM is started with
+ * "--add-modules jdk.incubator.vector", and can be switched off with
+ * "-Dkeyprefix.vector=false". Otherwise the scalar loop is used.
+ *
+ * @author zinal
+ */
+final class KeyBatch {
+
+    private static final boolean VECTOR = !"false".equals(System.getProperty("keyprefix.vector"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private KeyBatch() {
+    }
+
+    static String describe() {
+        return VECTOR ? Kernel.describe() : "scalar";
+    }
+
+    static void apply(long[] msb, long[] lsb, int count,
+            long msbKeep, long msbSet, long lsbKeep, long lsbSet) {
+        int done = 0;
+        if (VECTOR) {
+            done = Kernel.apply(msb, lsb, count, msbKeep, msbSet, lsbKeep, lsbSet);
+        }
+        applyScalar(msb, lsb, done, count, msbKeep, msbSet, lsbKeep, lsbSet);
+    }
+
+    static void applyScalar(long[] msb, long[] lsb, int from, int to,
+            long msbKeep, long msbSet, long lsbKeep, long lsbSet) {
+        for (int i = from; i < to; ++i) {
+            msb[i] = BaseKeyGen.reorder((msb[i] & msbKeep) | msbSet);
+            lsb[i] = (lsb[i] & lsbKeep) | lsbSet;
+        }
+    }
+
+    /**
+     * Vector API code, only loaded when the module is present.
+     */
+    private static final class Kernel {
+
+        static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+        // reorder(): bytes 0 1 2 3 4 5 6 7 become 3 2 1 0 5 4 7 6
+        static final long RIGHT_24 = 0x000000FF00000000L;
+        static final long RIGHT_8 = 0x0000FF0000FF00FFL;
+        static final long LEFT_8 = 0x00FF0000FF00FF00L;
+        static final long LEFT_24 = 0xFF00000000000000L;
+
+        static String describe() {
+            return "Vector API, " + SPECIES.length() + " lanes";
+        }
+
+        /**
+         * @return Number of keys processed, the rest is left for the scalar loop
+         */
+        static int apply(long[] msb, long[] lsb, int count,
+                long msbKeep, long msbSet, long lsbKeep, long lsbSet) {
+            int bound = SPECIES.loopBound(count);
+            for (int i = 0; i < bound; i += SPECIES.length()) {
+                LongVector v = LongVector.fromArray(SPECIES, msb, i)
+                        .and(msbKeep).or(msbSet);
+                v = v.lanewise(VectorOperators.LSHR, 24).and(RIGHT_24)
+                        .or(v.lanewise(VectorOperators.LSHR, 8).and(RIGHT_8))
+                        .or(v.lanewise(VectorOperators.LSHL, 8).and(LEFT_8))
+                        .or(v.lanewise(VectorOperators.LSHL, 24).and(LEFT_24));
+                v.intoArray(msb, i);
+                LongVector.fromArray(SPECIES, lsb, i)
+                        .and(lsbKeep).or(lsbSet)
+                        .intoArray(lsb, i);
+            }
+            return bound;
+        }
+    }
+}
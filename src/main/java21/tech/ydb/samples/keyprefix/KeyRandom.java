@@ -0,0 +1,102 @@
+package tech.ydb.samples.keyprefix;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Source of the random bits for the key generators.
+ *
+ * Java 21 variant: each platform thread gets its own DRBG instance, so the
+ * threads never contend on the shared SecureRandom lock, and the buffered
+ * bytes are read as longs through the byte array view. Creating a DRBG per
+ * virtual thread costs more than it saves, so the virtual threads share a
+ * striped pool of buffered DRBG instances, about two per CPU, picked by the
+ * thread id. The stripes are guarded with the ReentrantLock rather than
+ * synchronized, so that a waiting virtual thread does not pin its carrier.
+ *
+ * @author zinal
+ */
+final class KeyRandom {
+
+    private static final int BUFFER_BYTES = 512;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private static final Stripe[] STRIPES = newStripes();
+
+    private KeyRandom() {
+    }
+
+    static String describe() {
+        return "Java 21: per-thread " + STRIPES[0].buffer.random.getAlgorithm()
+                + ", " + STRIPES.length + " stripes for virtual threads, VarHandle reads";
+    }
+
+    static long nextLong() {
+        Thread t = Thread.currentThread();
+        if (t.isVirtual()) {
+            long h = t.threadId() * 0x9E3779B97F4A7C15L;
+            return STRIPES[(int) (h >>> 32) & (STRIPES.length - 1)].nextLong();
+        }
+        return BUFFERS.get().nextLong();
+    }
+
+    private static Stripe[] newStripes() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        // power of two, at least twice the CPU count
+        Stripe[] stripes = new Stripe[Math.max(2, Integer.highestOneBit(cpus) << 2)];
+        for (int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static SecureRandom newGenerator() {
+        try {
+            return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(
+                    256, DrbgParameters.Capability.NONE, null));
+        } catch (NoSuchAlgorithmException ex) {
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Buffer buffer = new Buffer();
+
+        long nextLong() {
+            lock.lock();
+            try {
+                return buffer.nextLong();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Buffer {
+
+        final SecureRandom random = newGenerator();
+        final byte[] data = new byte[BUFFER_BYTES];
+        int position = BUFFER_BYTES;
+
+        long nextLong() {
+            if (position == BUFFER_BYTES) {
+                random.nextBytes(data);
+                position = 0;
+            }
+            long v = (long) LONGS.get(data, position);
+            position += 8;
+            return v;
+        }
+    }
+}
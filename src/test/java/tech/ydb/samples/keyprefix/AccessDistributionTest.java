@@ -0,0 +1,62 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class AccessDistributionTest {
+
+    private static final long N = 82800L;
+    private static final int COUNT = 200000;
+
+    @Test
+    public void testUniform() {
+        double recent = shareAbove(AccessDistribution.parse("UNIFORM", N), 0.9);
+        Assert.assertEquals(0.1, recent, 0.01);
+    }
+
+    @Test
+    public void testZipf() {
+        AccessDistribution dist = AccessDistribution.parse("ZIPF:0.99", N);
+        Assert.assertTrue(shareAbove(dist, 0.99) > 0.5);
+        for (String bad : new String[]{"ZIPF:0", "ZIPF:1", "ZIPF:1.5"}) {
+            try {
+                AccessDistribution.parse(bad, N);
+                Assert.fail("Accepted " + bad);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testLatest() {
+        AccessDistribution dist = AccessDistribution.parse("LATEST:0.05", N);
+        // exponential: P(rank < 0.1 n) = 1 - e^-2
+        Assert.assertEquals(1.0 - Math.exp(-2.0), shareAbove(dist, 0.9), 0.01);
+    }
+
+    @Test
+    public void testHotspot() {
+        AccessDistribution dist = AccessDistribution.parse("HOTSPOT:0.1:0.8:0.9", N);
+        Assert.assertEquals(0.8, shareAbove(dist, 0.9), 0.01);
+    }
+
+    private static double shareAbove(AccessDistribution dist, double fraction) {
+        SplittableRandom random = new SplittableRandom(7L);
+        long threshold = (long) (N * fraction);
+        int hits = 0;
+        for (int i = 0; i < COUNT; ++i) {
+            long v = dist.sample(random);
+            Assert.assertTrue(v >= 0L && v < N);
+            if (v >= threshold) {
+                ++hits;
+            }
+        }
+        return ((double) hits) / COUNT;
+    }
+
+}
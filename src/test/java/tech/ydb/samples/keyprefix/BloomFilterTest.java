@@ -0,0 +1,36 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void testFalsePositives() {
+        int n = 100000;
+        BloomFilter bf = new BloomFilter(n, 10);
+        SplittableRandom r = new SplittableRandom(7L);
+        for (int i = 0; i < n; ++i) {
+            bf.put(r.nextLong(), i);
+        }
+        // no false negatives
+        r = new SplittableRandom(7L);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertTrue(bf.put(r.nextLong(), i));
+        }
+        int positives = 0;
+        for (int i = 0; i < n; ++i) {
+            if (bf.mightContain(r.nextLong(), -1L - i)) {
+                ++positives;
+            }
+        }
+        // about 1% for 10 bits per key, a bit more for the blocked filter
+        Assert.assertTrue("false positives: " + positives, positives < n / 50);
+        Assert.assertEquals(64L * ((n * 10L + 511L) / 512L), bf.memoryBytes());
+    }
+}
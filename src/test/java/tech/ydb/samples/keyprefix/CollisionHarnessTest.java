@@ -0,0 +1,42 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class CollisionHarnessTest {
+
+    @Test
+    public void testBirthdayBound() throws Exception {
+        // 20 random bits: 200k keys give about 19000 colliding pairs
+        CollisionHarness harness = new CollisionHarness(
+                random -> new UUID(0L, random.nextInt(1 << 20)), 20, 4, 10);
+        CollisionHarness.Result result = harness.run(200000L, 1L);
+        double expected = CollisionHarness.expectedCollisions(200000L, 20);
+        Assert.assertEquals(expected, result.getExpectedCollisions(), 1e-9);
+        Assert.assertTrue(result.format(), Math.abs(result.getCollisions() - expected)
+                < 0.1 * expected);
+        Assert.assertTrue(result.getCandidates() >= result.getCollisions() / 2);
+    }
+
+    @Test
+    public void testKeyGen() throws Exception {
+        UuidKeyGen gen = new UuidKeyGen(18);
+        Instant instant = Instant.parse("2024-05-01T00:00:00Z");
+        CollisionHarness.Scope scope = CollisionHarness.Scope.PREFIX_INSTANT;
+        int bits = CollisionHarness.randomBitsOf(gen, scope);
+        Assert.assertEquals(16 - 4 + 62, bits);
+        Assert.assertEquals(16 - 4 + 62 + 18,
+                CollisionHarness.randomBitsOf(gen, CollisionHarness.Scope.INSTANT));
+        CollisionHarness harness = new CollisionHarness(CollisionHarness.sourceOf(
+                gen, scope, instant, gen.getPrefixValue(3)), bits, 2, 10);
+        CollisionHarness.Result result = harness.run(100000L, 2L);
+        Assert.assertEquals(0L, result.getCollisions());
+        Assert.assertEquals(100000L, result.getKeys());
+    }
+}
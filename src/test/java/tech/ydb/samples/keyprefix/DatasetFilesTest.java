@@ -0,0 +1,64 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class DatasetFilesTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path dir = Files.createTempDirectory("keyprefix-dataset");
+        UuidKeyGen gen = new UuidKeyGen();
+        List<List<Main.DataEntry>> batches = new ArrayList<>();
+        try (DatasetFiles.Writer writer = new DatasetFiles.Writer(
+                DatasetFiles.shardPath(dir, 0), 10)) {
+            for (int b = 0; b < 5; ++b) {
+                List<Main.DataEntry> batch = new ArrayList<>();
+                long pfx = gen.nextPrefix();
+                for (int i = 0; i < 10; ++i) {
+                    Main.DataEntry e = new Main.DataEntry();
+                    e.tv = Instant.parse("2021-10-20T10:15:30.00Z").plusMillis(b * 1000 + i);
+                    e.mainId = gen.nextValue(pfx, e.tv);
+                    e.subId = gen.nextValue(pfx, e.tv);
+                    e.refId = gen.nextValue(pfx, e.tv);
+                    e.ballast1 = "абойщик, " + b + "/" + i;
+                    e.ballast2 = "";
+                    batch.add(e);
+                }
+                writer.write(batch);
+                batches.add(batch);
+            }
+        }
+        List<Path> shards = DatasetFiles.listShards(dir);
+        Assert.assertEquals(1, shards.size());
+        try (DatasetFiles.Reader reader = new DatasetFiles.Reader(shards.get(0))) {
+            Assert.assertEquals(50L, reader.getRecords());
+            Assert.assertEquals(5L, reader.getBatches());
+            for (List<Main.DataEntry> expected : batches) {
+                List<Main.DataEntry> actual = reader.nextBatch();
+                Assert.assertNotNull(actual);
+                for (int i = 0; i < expected.size(); ++i) {
+                    Main.DataEntry x = expected.get(i);
+                    Main.DataEntry y = actual.get(i);
+                    Assert.assertEquals(x.mainId, y.mainId);
+                    Assert.assertEquals(x.subId, y.subId);
+                    Assert.assertEquals(x.refId, y.refId);
+                    Assert.assertEquals(x.tv, y.tv);
+                    Assert.assertEquals(x.ballast1, y.ballast1);
+                    Assert.assertEquals(x.ballast2, y.ballast2);
+                }
+            }
+            Assert.assertNull(reader.nextBatch());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class FillJournalTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    public void testResume() throws Exception {
+        Path path = Files.createTempDirectory("fj").resolve("fill.journal");
+        try (FillJournal fj = new FillJournal(path, 42L, 0L)) {
+            for (int step = 0; step < 100; step += 3) {
+                fj.markDone(DAY, 0, step);
+            }
+            fj.markDone(DAY.plusDays(1), 1, 999);
+        }
+        try (FillJournal fj = new FillJournal(path, 42L, 60000L)) {
+            Assert.assertTrue(fj.isDone(DAY, 0, 99));
+            Assert.assertFalse(fj.isDone(DAY, 0, 98));
+            Assert.assertFalse(fj.isDone(DAY, 1, 99));
+            Assert.assertEquals(34, fj.countDone(DAY, 0, 100));
+            Assert.assertTrue(fj.isDone(DAY.plusDays(1), 1, 999));
+            Assert.assertEquals(0, fj.countDone(DAY.plusDays(1), 1, 999));
+        }
+    }
+
+    @Test
+    public void testTruncatedTail() throws Exception {
+        Path path = Files.createTempDirectory("fj").resolve("fill.journal");
+        try (FillJournal fj = new FillJournal(path, 7L, 0L)) {
+            fj.markDone(DAY, 0, 5);
+        }
+        long size = Files.size(path);
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // partial record, as if the process died during the flush
+            fc.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7}), size);
+        }
+        try (FillJournal fj = new FillJournal(path, 7L, 0L)) {
+            Assert.assertTrue(fj.isDone(DAY, 0, 5));
+            fj.markDone(DAY, 0, 6);
+        }
+        try (FillJournal fj = new FillJournal(path, 7L, 0L)) {
+            Assert.assertEquals(2, fj.countDone(DAY, 0, 10));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testSeedMismatch() throws Exception {
+        Path path = Files.createTempDirectory("fj").resolve("fill.journal");
+        new FillJournal(path, 1L, 0L).close();
+        new FillJournal(path, 2L, 0L).close();
+    }
+
+}
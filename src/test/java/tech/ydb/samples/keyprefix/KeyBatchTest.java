@@ -0,0 +1,56 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class KeyBatchTest {
+
+    @Test
+    public void testApplyMatchesScalar() {
+        SplittableRandom random = new SplittableRandom(7L);
+        // odd length, to cover the scalar tail of the vector loop
+        int count = 1001;
+        long[] msb1 = new long[count];
+        long[] lsb1 = new long[count];
+        for (int i = 0; i < count; ++i) {
+            msb1[i] = random.nextLong();
+            lsb1[i] = random.nextLong();
+        }
+        long[] msb2 = msb1.clone();
+        long[] lsb2 = lsb1.clone();
+        KeyBatch.apply(msb1, lsb1, count, 0xFFFF00000000FFF0L, 0x123456780000800AL,
+                0x3FFFFFFFFFFFFFFFL, 0x8000000000000000L);
+        KeyBatch.applyScalar(msb2, lsb2, 0, count, 0xFFFF00000000FFF0L, 0x123456780000800AL,
+                0x3FFFFFFFFFFFFFFFL, 0x8000000000000000L);
+        Assert.assertArrayEquals(msb2, msb1);
+        Assert.assertArrayEquals(lsb2, lsb1);
+        // fixed bytes 12 34, 00 00 and the low nibble A, in the GUID order
+        Assert.assertEquals(0x7856000000000A00L, msb1[0] & 0xFFFF0000FFFF0F00L);
+    }
+
+    @Test
+    public void testNextValuesMatchesNextValue() {
+        Instant instant = Instant.parse("2024-05-01T10:15:30Z");
+        for (int prefixBits : new int[]{1, 10, 18}) {
+            UuidKeyGen gen = new UuidKeyGen(prefixBits);
+            for (long prefix : new long[]{-1L, gen.getPrefixValue(3)}) {
+                long[] msb = new long[517];
+                long[] lsb = new long[517];
+                gen.nextValues(msb, lsb, prefix, instant, new SplittableRandom(11L));
+                SplittableRandom random = new SplittableRandom(11L);
+                for (int i = 0; i < msb.length; ++i) {
+                    UUID v = gen.nextValue(prefix, instant, random);
+                    Assert.assertEquals(v.getMostSignificantBits(), msb[i]);
+                    Assert.assertEquals(v.getLeastSignificantBits(), lsb[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class KeyExporterTest {
+
+    private static final Instant INSTANT = Instant.parse("2024-05-01T10:00:00Z");
+
+    private static byte[] export(KeyExporter.Format format, int threads,
+            boolean ordered, long count) throws Exception {
+        KeyExporter ke = new KeyExporter(new UuidKeyGen(), format, threads, ordered, 0.0);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Assert.assertEquals(count, ke.export(Channels.newChannel(baos), count, 42L, INSTANT));
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testEncode() {
+        UUID v = new UuidKeyGen().nextValue();
+        ByteBuffer bb = ByteBuffer.allocate(64);
+        KeyExporter.encode(KeyExporter.Format.CANONICAL,
+                v.getMostSignificantBits(), v.getLeastSignificantBits(), bb);
+        Assert.assertEquals(v.toString() + "\n",
+                new String(bb.array(), 0, bb.position(), StandardCharsets.US_ASCII));
+        bb.clear();
+        KeyExporter.encode(KeyExporter.Format.BASE64,
+                v.getMostSignificantBits(), v.getLeastSignificantBits(), bb);
+        Assert.assertEquals(BaseKeyGen.toString(v) + "\n",
+                new String(bb.array(), 0, bb.position(), StandardCharsets.US_ASCII));
+        bb.clear();
+        KeyExporter.encode(KeyExporter.Format.BINARY,
+                v.getMostSignificantBits(), v.getLeastSignificantBits(), bb);
+        bb.flip();
+        Assert.assertEquals(v, new UUID(bb.getLong(), bb.getLong()));
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        long count = 50000L;
+        byte[] single = export(KeyExporter.Format.CANONICAL, 1, true, count);
+        byte[] multi = export(KeyExporter.Format.CANONICAL, 4, true, count);
+        Assert.assertEquals(37L * count, single.length);
+        Assert.assertArrayEquals(single, multi);
+        String[] lines = new String(multi, StandardCharsets.US_ASCII).split("\n");
+        Set<String> distinct = new HashSet<>();
+        for (String line : lines) {
+            UUID.fromString(line);
+            distinct.add(line);
+        }
+        Assert.assertEquals(count, distinct.size());
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        long count = 30001L;
+        byte[] data = export(KeyExporter.Format.BINARY, 3, false, count);
+        Assert.assertEquals(16L * count, data.length);
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        UuidHashSet keys = new UuidHashSet();
+        while (bb.hasRemaining()) {
+            Assert.assertTrue(keys.add(bb.getLong(), bb.getLong()));
+        }
+        // the same keys as in the ordered output
+        byte[] ordered = export(KeyExporter.Format.BINARY, 1, true, count);
+        bb = ByteBuffer.wrap(ordered);
+        while (bb.hasRemaining()) {
+            Assert.assertTrue(keys.contains(bb.getLong(), bb.getLong()));
+        }
+    }
+
+    @Test
+    public void testUnseeded() throws Exception {
+        KeyExporter ke = new KeyExporter(new UuidKeyGen(), KeyExporter.Format.BINARY, 2, true, 0.0);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        ke.export(Channels.newChannel(first), 20000L, null, INSTANT);
+        ke.export(Channels.newChannel(second), 20000L, null, INSTANT);
+        Assert.assertEquals(20000 * 16, first.size());
+        Assert.assertFalse(Arrays.equals(first.toByteArray(), second.toByteArray()));
+    }
+
+}
@@ -0,0 +1,65 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class PartitionAnalyzerTest {
+
+    private static final Instant FROM = Instant.parse("2024-05-01T00:00:00Z");
+
+    private static PartitionAnalyzer.Result run(KeyLayout layout) {
+        UuidKeyGen gen = new UuidKeyGen(6, 30, TimestampUnit.SECONDS, false, layout);
+        PartitionAnalyzer analyzer = new PartitionAnalyzer(gen.getPrefixCount(), 20, 60);
+        return analyzer.run(gen, gen::nextPrefix, FROM, 3600L, 2000L, 1L);
+    }
+
+    @Test
+    public void testPrefixLayout() {
+        PartitionAnalyzer.Result result = run(KeyLayout.PREFIX);
+        // the batch shares the prefix, which matches the partition
+        Assert.assertEquals(1.0, result.getShardsPerBatch(), 1e-9);
+        // about 33 batches per minute over 64 partitions
+        Assert.assertTrue(result.getShardsPerWindow() > 20.0);
+        Assert.assertTrue(result.getMaxShardShare() < 0.05);
+    }
+
+    @Test
+    public void testTimeFirstLayout() {
+        PartitionAnalyzer.Result result = run(KeyLayout.TIME_FIRST);
+        // all the writes of the hour go to the end of the key range
+        Assert.assertTrue(result.getShardsPerWindow() < 1.5);
+        Assert.assertTrue(result.getMaxShardShare() > 0.9);
+    }
+
+    @Test
+    public void testBitReversedLayout() {
+        PartitionAnalyzer.Result result = run(KeyLayout.BIT_REVERSED);
+        Assert.assertEquals(1.0, result.getShardsPerBatch(), 1e-9);
+        // round-robin over the prefixes: exactly even
+        Assert.assertEquals(1.0 / 64, result.getMaxShardShare(), 0.001);
+    }
+
+    @Test
+    public void testPrefixRotation() {
+        UuidKeyGen gen = new UuidKeyGen(6, 30, TimestampUnit.SECONDS, false, KeyLayout.PREFIX);
+        gen.setRotation(4, Duration.ofSeconds(60L));
+        PartitionAnalyzer analyzer = new PartitionAnalyzer(gen.getPrefixCount(), 20, 60);
+        // the rotation windows follow the wrapped timestamp code
+        Instant from = FROM.minusSeconds(gen.timestampCode(FROM) % 60L);
+        PartitionAnalyzer.Result result = analyzer.run(gen, gen::nextPrefix,
+                from, 3600L, 2000L, 1L);
+        // the batches are aligned to the rotation windows, matching the analyzer's
+        Assert.assertEquals(1.0, result.getShardsPerBatch(), 1e-9);
+        Assert.assertTrue(result.getShardsPerWindow() <= 4.0);
+        Assert.assertTrue(run(KeyLayout.PREFIX).getShardsPerWindow() > 20.0);
+        // still even over the hour
+        Assert.assertTrue(result.getMaxShardShare() < 0.05);
+        Assert.assertTrue(result.getName().contains("rotating 4 prefixes per 60 s"));
+    }
+}
@@ -0,0 +1,101 @@
+package tech.ydb.samples.keyprefix;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.commons.text.StringSubstitutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class PartitionPlannerTest {
+
+    @Test
+    public void testUuidBoundaries() {
+        PartitionPlanner planner = new PartitionPlanner(new UuidKeyGen(10));
+        Instant from = Instant.parse("2021-01-01T00:00:00Z");
+        Instant till = Instant.parse("2025-01-01T00:00:00Z");
+        for (int partitions : new int[]{2, 100, 1024, 5000}) {
+            List<UUID> keys = planner.uuidBoundaries(partitions, from, till);
+            Assert.assertTrue(keys.size() >= partitions - 1);
+            checkOrder(keys);
+        }
+        Assert.assertEquals(1023, planner.uuidBoundaries(5000, null, null).size());
+        System.out.println(PartitionPlanner.formatUuidKeys(planner.uuidBoundaries(4, from, till)));
+    }
+
+    @Test
+    public void testTimeFirstBoundaries() {
+        UuidKeyGen gen = new UuidKeyGen(10, 30, TimestampUnit.SECONDS, false,
+                KeyLayout.TIME_FIRST);
+        PartitionPlanner planner = new PartitionPlanner(gen);
+        Instant from = Instant.parse("2021-01-01T00:00:00Z");
+        Instant till = Instant.parse("2025-01-01T00:00:00Z");
+        List<UUID> keys = planner.uuidBoundaries(100, from, till);
+        Assert.assertEquals(99, keys.size());
+        checkOrder(keys);
+        Assert.assertTrue(planner.uuidBoundaries(1, null, null).isEmpty());
+        try {
+            planner.uuidBoundaries(100, null, null);
+            Assert.fail("Prefix splits produced for the time-first layout");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testTimeBoundaries() {
+        Instant from = Instant.parse("2021-01-01T00:00:00Z");
+        Instant till = Instant.parse("2025-01-01T00:00:00Z");
+        List<Instant> keys = PartitionPlanner.timeBoundaries(1000, from, till);
+        Assert.assertEquals(999, keys.size());
+        for (int i = 1; i < keys.size(); ++i) {
+            Assert.assertTrue(keys.get(i - 1).isBefore(keys.get(i)));
+        }
+        Assert.assertEquals("", PartitionPlanner.formatIndexTimeKeys(
+                PartitionPlanner.timeBoundaries(0, from, till)));
+    }
+
+    @Test
+    public void testPresplitDdl() throws Exception {
+        PartitionPlanner planner = new PartitionPlanner(new UuidKeyGen(10));
+        Instant from = Instant.parse("2021-01-01T00:00:00Z");
+        Instant till = Instant.parse("2025-01-01T00:00:00Z");
+        Map<String, String> vars = planner.ddlVariables(100, 10, from, till);
+        vars.put("table_dir", "key_prefix_demo");
+        String ddlText = new String(Files.readAllBytes(
+                Paths.get("scripts", "sample-ddl.sql")), StandardCharsets.UTF_8);
+        String[] sqls = new StringSubstitutor(vars).replace(ddlText).split(";");
+        int creates = 0;
+        for (String sql : sqls) {
+            Assert.assertFalse(sql, sql.contains("${"));
+            if (sql.contains("ALTER INDEX ix_")) {
+                Assert.assertFalse(sql, sql.contains("PARTITION_AT_KEYS"));
+            }
+            if (sql.contains("CREATE TABLE `")) {
+                ++creates;
+                Assert.assertTrue(sql, sql.contains(
+                        "ON (tv) WITH (\n    PARTITION_AT_KEYS = ((Timestamp("));
+                Assert.assertTrue(sql, sql.contains("_id) WITH (\n    PARTITION_AT_KEYS = ((Uuid("));
+                Assert.assertTrue(sql, sql.contains(
+                        "5500,\n  PARTITION_AT_KEYS = ((Uuid("));
+            }
+        }
+        Assert.assertEquals(2, creates);
+    }
+
+    private static void checkOrder(List<UUID> keys) {
+        for (int i = 1; i < keys.size(); ++i) {
+            long a = BaseKeyGen.reorder(keys.get(i - 1).getMostSignificantBits());
+            long b = BaseKeyGen.reorder(keys.get(i).getMostSignificantBits());
+            Assert.assertTrue(Long.compareUnsigned(a, b) < 0);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void testTryAcquire() {
+        RateLimiter rl = new RateLimiter(10.0, 1, 0L);
+        Assert.assertTrue(rl.tryAcquire(10));
+        // the next second worth of permits is taken
+        Assert.assertFalse(rl.tryAcquire(1));
+    }
+
+    @Test
+    public void testRate() throws Exception {
+        double rate = 20000.0;
+        int threads = 4;
+        int chunk = 50;
+        int chunksPerThread = 40;
+        RateLimiter rl = new RateLimiter(rate, threads, 0L);
+        long started = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            Thread w = new Thread(() -> {
+                try {
+                    for (int i = 0; i < chunksPerThread; ++i) {
+                        rl.acquire(chunk);
+                    }
+                } catch (InterruptedException ix) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double expected = threads * chunksPerThread * chunk / rate;
+        // the last reservation is granted one stripe interval before its end
+        Assert.assertTrue("Too fast: " + seconds, seconds > expected * 0.7);
+        Assert.assertTrue("Too slow: " + seconds, seconds < expected * 3.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalRate() {
+        new RateLimiter(0.0, 1, 0L);
+    }
+
+}
@@ -0,0 +1,32 @@
+package tech.ydb.samples.keyprefix;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class ResultStatsTest {
+
+    @Test
+    public void testSizeOf() {
+        Assert.assertEquals(0L, ResultStats.sizeOf(null));
+        Assert.assertEquals(16L, ResultStats.sizeOf(UUID.randomUUID()));
+        Assert.assertEquals(3L, ResultStats.sizeOf("abc"));
+        // two bytes per Cyrillic letter in UTF-8
+        Assert.assertEquals(4L, ResultStats.sizeOf("аб"));
+        Assert.assertEquals(8L, ResultStats.sizeOf(new Timestamp(0L)));
+        Assert.assertEquals(4L, ResultStats.sizeOf(1));
+        Assert.assertEquals(8L, ResultStats.sizeOf(1L));
+    }
+
+    @Test
+    public void testFormatEmpty() {
+        ResultStats rs = new ResultStats("q");
+        Assert.assertTrue(rs.format(10).startsWith("q: 0 queries"));
+    }
+
+}
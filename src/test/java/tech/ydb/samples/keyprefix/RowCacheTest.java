@@ -0,0 +1,60 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class RowCacheTest {
+
+    private static final int WEIGHT = 1000 + RowCache.ENTRY_OVERHEAD;
+
+    private static RowCache<String> newCache(int entries) {
+        return new RowCache<>((long) entries * WEIGHT, 0, v -> 1000);
+    }
+
+    @Test
+    public void testHitMiss() {
+        RowCache<String> cache = newCache(10);
+        UUID id = new UUID(1L, 1L);
+        Assert.assertNull(cache.get(id));
+        cache.put(id, "a");
+        Assert.assertEquals("a", cache.get(id));
+        Assert.assertEquals(1L, cache.getHits());
+        Assert.assertEquals(1L, cache.getMisses());
+        Assert.assertEquals(0.5, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void testBoundedByBytes() {
+        RowCache<String> cache = newCache(10);
+        for (long i = 0; i < 100L; ++i) {
+            cache.put(new UUID(0L, i), "x");
+        }
+        Assert.assertEquals(10, cache.size());
+        Assert.assertEquals(90L, cache.getEvictions());
+        Assert.assertTrue(cache.getSizeBytes() <= cache.getCapacityBytes());
+        // the most recent entries survive
+        Assert.assertNotNull(cache.get(new UUID(0L, 99L)));
+        Assert.assertNull(cache.get(new UUID(0L, 0L)));
+    }
+
+    @Test
+    public void testScanResistance() {
+        RowCache<String> cache = newCache(10);
+        for (long i = 0; i < 5L; ++i) {
+            cache.put(new UUID(1L, i), "hot");
+            Assert.assertNotNull(cache.get(new UUID(1L, i)));
+        }
+        for (long i = 0; i < 1000L; ++i) {
+            cache.put(new UUID(2L, i), "scan");
+        }
+        for (long i = 0; i < 5L; ++i) {
+            Assert.assertNotNull(cache.get(new UUID(1L, i)));
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class ShardEstimatorTest {
+
+    @Test
+    public void testPrefixAligned() {
+        UuidKeyGen gen = new UuidKeyGen(4);
+        ShardEstimator est = new ShardEstimator(gen.getPrefixCount());
+        Instant now = Instant.now();
+        for (int i = 0; i < gen.getPrefixCount(); ++i) {
+            long prefix = gen.getPrefixValue(i);
+            for (int j = 0; j < 100; ++j) {
+                Assert.assertEquals(i, est.shardOf(gen.nextValue(prefix, now)));
+            }
+        }
+    }
+
+    @Test
+    public void testBoundaries() {
+        UuidKeyGen gen = new UuidKeyGen(6);
+        PartitionPlanner planner = new PartitionPlanner(gen);
+        ShardEstimator est = new ShardEstimator(16);
+        List<UUID> bounds = planner.uuidBoundaries(16, null, null);
+        for (int i = 0; i < bounds.size(); ++i) {
+            Assert.assertEquals(i + 1, est.shardOf(bounds.get(i)));
+        }
+    }
+
+    @Test
+    public void testCount() {
+        UuidKeyGen gen = new UuidKeyGen(10);
+        ShardEstimator est = new ShardEstimator(64);
+        long prefix = gen.nextPrefix();
+        ArrayList<UUID> shared = new ArrayList<>();
+        ArrayList<UUID> random = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            shared.add(gen.nextValue(prefix, Instant.now()));
+            random.add(UUID.randomUUID());
+        }
+        Assert.assertEquals(1, est.countShards(shared));
+        Assert.assertTrue(est.countShards(random) > 40);
+    }
+
+}
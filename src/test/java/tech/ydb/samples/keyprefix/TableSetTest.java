@@ -0,0 +1,33 @@
+package tech.ydb.samples.keyprefix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class TableSetTest {
+
+    @Test
+    public void testSingle() {
+        TableSet ts = new TableSet(null, 1);
+        Assert.assertEquals(1, ts.size());
+        Assert.assertEquals("`key_prefix_demo/main`", ts.get(0).getMain());
+        Assert.assertEquals("`key_prefix_demo/sub`", ts.get(0).getSub());
+    }
+
+    @Test
+    public void testMultiple() {
+        TableSet ts = new TableSet("tenant%02d/kp", 3);
+        Assert.assertEquals("tenant02/kp", ts.get(2).getDir());
+        ts = new TableSet("kp", 2);
+        Assert.assertEquals("`kp_1/sub`", ts.get(1).getSub());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCount() {
+        new TableSet("kp", 0);
+    }
+
+}
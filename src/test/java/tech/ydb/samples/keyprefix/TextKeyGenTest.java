@@ -2,6 +2,10 @@ package tech.ydb.samples.keyprefix;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -34,6 +38,21 @@ public class TextKeyGenTest {
         print(gen.nextValue(LocalDate.ofYearDay(2083, 33)));
     }
 
+    @Test
+    public void testStream() {
+        TextKeyGen gen = new TextKeyGen();
+        Instant instant = Instant.parse("2007-12-03T10:15:30.00Z");
+        Set<String> values = gen.stream(gen.nextPrefix(), instant).parallel()
+                .limit(10000).collect(Collectors.toSet());
+        Assert.assertEquals(10000, values.size());
+        // the same prefix and timestamp give the same leading symbols
+        Assert.assertEquals(1L, values.stream().map(v -> v.substring(0, 6))
+                .distinct().count());
+        SplittableRandom r1 = new SplittableRandom(1L);
+        SplittableRandom r2 = new SplittableRandom(1L);
+        Assert.assertEquals(gen.nextValue(-1L, instant, r1), gen.nextValue(-1L, instant, r2));
+    }
+
     private void print(String id) {
         System.out.println(id);
     }
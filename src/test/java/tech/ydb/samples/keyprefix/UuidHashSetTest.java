@@ -0,0 +1,70 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class UuidHashSetTest {
+
+    @Test
+    public void testAddContains() {
+        UuidKeyGen gen = new UuidKeyGen(4);
+        UuidHashSet set = new UuidHashSet(10);
+        Set<UUID> expected = new HashSet<>();
+        Random r = new Random(1L);
+        for (int i = 0; i < 20000; ++i) {
+            UUID v = gen.nextValue(gen.getPrefixValue(r.nextInt(16)));
+            Assert.assertEquals(expected.add(v), set.add(v));
+            // re-add some of the values
+            if (i % 7 == 0) {
+                Assert.assertFalse(set.add(v));
+            }
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        for (UUID v : expected) {
+            Assert.assertTrue(set.contains(v));
+        }
+        Assert.assertFalse(set.contains(gen.nextValue(0)));
+        // the zero key is the empty slot marker, tracked aside
+        Assert.assertFalse(set.contains(0L, 0L));
+        Assert.assertTrue(set.add(0L, 0L));
+        Assert.assertFalse(set.add(0L, 0L));
+        Assert.assertEquals(expected.size() + 1, set.size());
+        // 2^15 slots of 16 bytes for 20001 keys
+        Assert.assertEquals(32768, set.capacity());
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testLongMap() {
+        UuidLongMap map = new UuidLongMap(4, -1L);
+        for (long i = 0; i < 1000; ++i) {
+            Assert.assertEquals(-1L, map.put(1L + i % 100, i, i));
+        }
+        Assert.assertEquals(1000, map.size());
+        Assert.assertEquals(17L, map.get(18L, 17L));
+        Assert.assertEquals(-1L, map.get(18L, 18L));
+        Assert.assertEquals(17L, map.put(18L, 17L, 5L));
+        Assert.assertEquals(8L, map.addTo(18L, 17L, 3L));
+        Assert.assertEquals(3L, map.addTo(1L, 2L, 3L));
+        Assert.assertEquals(-1L, map.get(0L, 0L));
+        map.put(0L, 0L, 42L);
+        Assert.assertEquals(42L, map.get(0L, 0L));
+        long[] total = new long[2];
+        map.forEach((msb, lsb, value) -> {
+            total[0] += 1;
+            total[1] += value;
+        });
+        Assert.assertEquals(map.size(), total[0]);
+        // sum of 0..999, 17 replaced with 8, plus 3 and 42
+        Assert.assertEquals(499500L - 17L + 8L + 3L + 42L, total[1]);
+    }
+}
@@ -1,8 +1,20 @@
 package tech.ydb.samples.keyprefix;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -35,8 +47,348 @@ public class UuidKeyGenTest {
         print(gen.nextValue(LocalDate.ofYearDay(2083, 33)));
     }
 
+    @Test
+    public void testRangeBound() {
+        UuidKeyGen gen = new UuidKeyGen();
+        Instant from = Instant.parse("2021-10-20T10:15:30.00Z");
+        Instant till = from.plusSeconds(60);
+        for (int i = 0; i < 100; ++i) {
+            long pfx = gen.getPrefixValue(i % gen.getPrefixCount());
+            long lo = UuidKeyGen.reorder(gen.rangeBound(pfx, from).getMostSignificantBits());
+            long hi = UuidKeyGen.reorder(gen.rangeBound(pfx, till).getMostSignificantBits());
+            long inside = UuidKeyGen.reorder(gen.nextValue(pfx, from.plusSeconds(i % 60))
+                    .getMostSignificantBits());
+            long before = UuidKeyGen.reorder(gen.nextValue(pfx, from.minusSeconds(1))
+                    .getMostSignificantBits());
+            long after = UuidKeyGen.reorder(gen.nextValue(pfx, till)
+                    .getMostSignificantBits());
+            Assert.assertTrue(Long.compareUnsigned(lo, inside) <= 0);
+            Assert.assertTrue(Long.compareUnsigned(inside, hi) < 0);
+            Assert.assertTrue(Long.compareUnsigned(before, lo) < 0);
+            Assert.assertTrue(Long.compareUnsigned(after, hi) >= 0);
+        }
+    }
+
+    @Test
+    public void testSequential() {
+        UuidKeyGen gen = new UuidKeyGen(10, true);
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long pfx = gen.nextPrefix();
+        long prev = 0L;
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 10000; ++i) {
+            UUID v = gen.nextValue(pfx, instant);
+            long msb = UuidKeyGen.reorder(v.getMostSignificantBits());
+            Assert.assertEquals(8L, (msb >>> 12) & 0xFL);
+            Assert.assertEquals(2, v.variant());
+            if (i > 0) {
+                Assert.assertTrue(Long.compareUnsigned(prev, msb) < 0);
+            }
+            prev = msb;
+            Assert.assertTrue(seen.add(v));
+        }
+        Assert.assertEquals(0L, gen.getSequence().getFallbackCount());
+    }
+
+    @Test
+    public void testSequentialThreads() {
+        UuidKeyGen gen = new UuidKeyGen(12, true);
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long pfx = gen.nextPrefix();
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 4000).parallel().forEach(i -> {
+            long msb = gen.nextValue(pfx, instant).getMostSignificantBits();
+            Assert.assertTrue(seen.add(msb));
+        });
+        Assert.assertEquals(4000, seen.size());
+    }
+
+    @Test
+    public void testSubSecondLayout() {
+        UuidKeyGen gen = new UuidKeyGen(10, 38, TimestampUnit.MILLIS, false);
+        Assert.assertEquals(16, gen.getTimestampLowBit());
+        Assert.assertEquals((1L << 38), gen.getWrapAroundPeriod().toMillis());
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long pfx = gen.nextPrefix();
+        long prev = 0L;
+        for (int i = 0; i < 1000; ++i) {
+            long msb = UuidKeyGen.reorder(gen.nextValue(pfx, instant.plusMillis(i))
+                    .getMostSignificantBits());
+            Assert.assertEquals(8L, (msb >>> 12) & 0xFL);
+            if (i > 0) {
+                Assert.assertTrue(Long.compareUnsigned(prev, msb) < 0);
+            }
+            prev = msb;
+        }
+        UuidKeyGen def = new UuidKeyGen();
+        Assert.assertEquals(UuidKeyGen.Holder.timestampMasks[def.maskPos], def.getTimestampMask());
+        Assert.assertEquals(TextKeyGen.TIMESTAMP_SECONDS * 1000L,
+                def.getWrapAroundPeriod().toMillis());
+    }
+
+    @Test
+    public void testSeeded() {
+        UuidKeyGen gen = new UuidKeyGen();
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        SplittableRandom r1 = new SplittableRandom(WorkloadRandom.mix(42L, 1L));
+        SplittableRandom r2 = new SplittableRandom(WorkloadRandom.mix(42L, 1L));
+        long pfx = gen.nextPrefix(r1);
+        Assert.assertEquals(pfx, gen.nextPrefix(r2));
+        for (int i = 0; i < 100; ++i) {
+            UUID v = gen.nextValue(pfx, instant, r1);
+            Assert.assertEquals(v, gen.nextValue(pfx, instant, r2));
+            long msb = UuidKeyGen.reorder(v.getMostSignificantBits());
+            Assert.assertEquals(8L, (msb >>> 12) & 0xFL);
+            Assert.assertEquals(2, v.variant());
+        }
+        Assert.assertNotEquals(WorkloadRandom.mix(42L, 1L), WorkloadRandom.mix(42L, 2L));
+    }
+
+    @Test
+    public void testStream() {
+        UuidKeyGen gen = new UuidKeyGen(8);
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long pfx = gen.getPrefixValue(77);
+        UUID bound = gen.rangeBound(pfx, instant);
+        UUID next = gen.rangeBound(pfx, instant.plusSeconds(1));
+        Set<UUID> values = gen.stream(pfx, instant).parallel()
+                .limit(100000).collect(Collectors.toSet());
+        Assert.assertEquals(100000, values.size());
+        for (UUID v : values) {
+            Assert.assertTrue(UuidOrder.YDB.compare(bound, v) <= 0);
+            Assert.assertTrue(UuidOrder.YDB.compare(v, next) < 0);
+            Assert.assertEquals(2, v.variant());
+        }
+        // random prefixes over all 256 values
+        long prefixes = gen.stream(instant).parallel().limit(20000)
+                .mapToLong(v -> UuidKeyGen.reorder(v.getMostSignificantBits()) >>> 56)
+                .distinct().count();
+        Assert.assertEquals(256L, prefixes);
+    }
+
+    @Test
+    public void testBlocks() {
+        UuidKeyGen gen = new UuidKeyGen(8);
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long pfx = gen.getPrefixValue(5);
+        UuidHashSet all = new UuidHashSet();
+        List<UuidKeyGen.Block> blocks = gen.blocks(1000, pfx, instant).parallel()
+                .limit(50).collect(Collectors.toList());
+        Assert.assertEquals(50, blocks.size());
+        for (UuidKeyGen.Block b : blocks) {
+            for (int i = 0; i < b.size(); ++i) {
+                Assert.assertTrue(all.add(b.getMsb()[i], b.getLsb()[i]));
+            }
+        }
+        Assert.assertEquals(50000, all.size());
+        UUID v = gen.blocks(1, pfx, instant).findFirst().get().get(0);
+        Assert.assertEquals(UuidKeyGen.reorder(gen.rangeBound(pfx, instant)
+                .getMostSignificantBits()) >>> 56,
+                UuidKeyGen.reorder(v.getMostSignificantBits()) >>> 56);
+    }
+
     private void print(UUID uuid) {
         System.out.println(uuid.toString() + " " + TextKeyGen.toString(uuid));
     }
 
+    @Test
+    public void testTimeFirstLayout() {
+        UuidKeyGen gen = new UuidKeyGen(10, 30, TimestampUnit.SECONDS, false,
+                KeyLayout.TIME_FIRST);
+        Assert.assertEquals(1, gen.getRangeCount());
+        Instant instant = Instant.parse("2021-10-20T10:15:30.00Z");
+        long tsCode = gen.timestampCode(instant);
+        long prefix = gen.getPrefixValue(5);
+        UUID v = gen.nextValue(prefix, instant);
+        long msb = BaseKeyGen.reorder(v.getMostSignificantBits());
+        Assert.assertEquals(tsCode, msb >>> 34);
+        Assert.assertEquals(5L, (msb >>> 24) & 0x3FFL);
+        Assert.assertEquals(8L, (msb >>> 12) & 0xFL);
+        // the later keys are greater, whatever the prefix
+        UUID later = gen.nextValue(gen.getPrefixValue(0), instant.plusSeconds(1));
+        Assert.assertTrue(UuidOrder.YDB.compare(v, later) < 0);
+        Assert.assertTrue(UuidOrder.YDB.compare(gen.rangeBound(0L, instant), v) <= 0);
+        Assert.assertTrue(UuidOrder.YDB.compare(v, gen.rangeBound(0L, instant.plusSeconds(1))) < 0);
+        long[] msbs = new long[100];
+        long[] lsbs = new long[100];
+        gen.nextValues(msbs, lsbs, prefix, instant, new SplittableRandom(3L));
+        SplittableRandom random = new SplittableRandom(3L);
+        for (int i = 0; i < msbs.length; ++i) {
+            Assert.assertEquals(gen.nextValue(prefix, instant, random).getMostSignificantBits(),
+                    msbs[i]);
+        }
+    }
+
+    @Test
+    public void testBitReversedLayout() {
+        UuidKeyGen gen = new UuidKeyGen(10, 30, TimestampUnit.SECONDS, false,
+                KeyLayout.BIT_REVERSED);
+        Assert.assertEquals(gen.getPrefixValue(0), gen.nextPrefix());
+        Assert.assertEquals(gen.getPrefixValue(512), gen.nextPrefix());
+        Assert.assertEquals(gen.getPrefixValue(256), gen.nextPrefix());
+        Assert.assertEquals(gen.getPrefixValue(768), gen.nextPrefix());
+        // the next 1024 keys with the per-key prefixes cover all the prefixes
+        Instant instant = Instant.now();
+        Set<Long> prefixes = new HashSet<>();
+        for (int i = 0; i < 1024; ++i) {
+            long msb = BaseKeyGen.reorder(gen.nextValue(instant).getMostSignificantBits());
+            prefixes.add(msb >>> 54);
+        }
+        Assert.assertEquals(1024, prefixes.size());
+    }
+
+    @Test
+    public void testTenantPrefix() {
+        UuidKeyGen gen = new UuidKeyGen(10, 30, TimestampUnit.SECONDS, false,
+                KeyLayout.TENANT_HASH);
+        Instant instant = Instant.now();
+        Set<Long> prefixes = new HashSet<>();
+        for (long tenant = 0; tenant < 100; ++tenant) {
+            long prefix = gen.prefixOf(tenant);
+            Assert.assertEquals(prefix, gen.prefixOf(tenant));
+            long a = BaseKeyGen.reorder(gen.nextValue(prefix, instant).getMostSignificantBits());
+            long b = BaseKeyGen.reorder(gen.nextValue(prefix, instant).getMostSignificantBits());
+            Assert.assertEquals(a >>> 54, b >>> 54);
+            prefixes.add(a >>> 54);
+        }
+        // 100 tenants over 1024 prefixes, mostly distinct
+        Assert.assertTrue(prefixes.size() > 90);
+    }
+
+    @Test
+    public void testKeyLayoutParse() {
+        Assert.assertEquals(KeyLayout.PREFIX, KeyLayout.parse("prefix"));
+        Assert.assertEquals(KeyLayout.TIME_FIRST, KeyLayout.parse(" Time-First "));
+        Assert.assertEquals(KeyLayout.TIME_FIRST, KeyLayout.parse("v7"));
+        Assert.assertEquals(KeyLayout.TENANT_HASH, KeyLayout.parse("TENANT_HASH"));
+        Assert.assertEquals(KeyLayout.BIT_REVERSED, KeyLayout.parse("bit-reversed"));
+        Assert.assertEquals("bit-reversed", KeyLayout.BIT_REVERSED.toString());
+    }
+
+    @Test
+    public void testAffinityPrefix() {
+        UuidKeyGen gen = new UuidKeyGen(10);
+        Instant instant = Instant.now();
+        Set<Long> prefixes = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(5L);
+        for (int i = 0; i < 100; ++i) {
+            UUID collection = new UUID(random.nextLong(), random.nextLong());
+            long a = BaseKeyGen.reorder(gen.nextValue(collection, instant).getMostSignificantBits());
+            long b = BaseKeyGen.reorder(gen.nextValue(collection, instant.plusSeconds(100),
+                    random).getMostSignificantBits());
+            Assert.assertEquals(a >>> 54, b >>> 54);
+            Assert.assertEquals(gen.prefixOf(collection) >>> 54, a >>> 54);
+            prefixes.add(a >>> 54);
+        }
+        Assert.assertTrue(prefixes.size() > 90);
+        // FNV-1a over the canonical bytes, as computed outside of the tool
+        UUID known = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        Assert.assertEquals(0xBB190514D82DB34FL, gen.prefixOf(known));
+        Assert.assertEquals(gen.prefixOf(known), gen.prefixOf(new byte[]{
+            0x12, 0x3e, 0x45, 0x67, (byte) 0xe8, (byte) 0x9b, 0x12, (byte) 0xd3,
+            (byte) 0xa4, 0x56, 0x42, 0x66, 0x14, 0x17, 0x40, 0x00}));
+        // the text keys hash the same as their ASCII bytes
+        Assert.assertEquals(gen.prefixOf("tenant-42"),
+                gen.prefixOf("tenant-42".getBytes(StandardCharsets.US_ASCII)));
+        long unsalted = gen.prefixOf("tenant-42");
+        gen.setAffinitySalt(12345L);
+        Assert.assertNotEquals(unsalted, gen.prefixOf("tenant-42"));
+        UUID v = gen.nextValue("tenant-42", instant);
+        Assert.assertEquals(gen.prefixOf("tenant-42") >>> 54,
+                BaseKeyGen.reorder(v.getMostSignificantBits()) >>> 54);
+    }
+
+    @Test
+    public void testPrefixRotation() {
+        UuidKeyGen gen = new UuidKeyGen(10);
+        gen.setRotation(8, Duration.ofSeconds(60L));
+        Instant instant = Instant.ofEpochSecond(gen.getRotationWindow().getSeconds() * 1000L);
+        Set<Long> first = new HashSet<>();
+        Set<Long> second = new HashSet<>();
+        for (int i = 0; i < 1000; ++i) {
+            first.add(BaseKeyGen.reorder(gen.nextValue(instant.plusSeconds(i % 60))
+                    .getMostSignificantBits()) >>> 54);
+            Instant next = instant.plusSeconds(60);
+            second.add(BaseKeyGen.reorder(gen.nextValue(gen.activePrefix(gen.nextPrefix(), next),
+                    next).getMostSignificantBits()) >>> 54);
+        }
+        Assert.assertEquals(8, first.size());
+        Assert.assertEquals(8, second.size());
+        first.retainAll(second);
+        Assert.assertTrue(first.isEmpty());
+        // the shared prefix is moved into the group by the caller
+        long prefix = gen.getPrefixValue(100);
+        Assert.assertEquals(gen.getPrefixValue(100 % 8 + 8000 % 1024),
+                gen.activePrefix(prefix, instant));
+        // the explicit prefixes are embedded as given
+        Assert.assertEquals(100L, BaseKeyGen.reorder(gen.nextValue(prefix, instant)
+                .getMostSignificantBits()) >>> 54);
+        long[] msb = new long[10];
+        long[] lsb = new long[10];
+        gen.nextValues(msb, lsb, prefix, instant, new SplittableRandom(9L));
+        Assert.assertEquals(gen.nextValue(prefix, instant, new SplittableRandom(9L))
+                .getMostSignificantBits(), msb[0]);
+        // the range bounds are the plain key positions
+        Assert.assertEquals(100L, BaseKeyGen.reorder(gen.rangeBound(prefix, instant)
+                .getMostSignificantBits()) >>> 54);
+    }
+
+    @Test
+    public void testRotationBound() {
+        UuidKeyGen gen = new UuidKeyGen(10);
+        gen.setRotation(8, Duration.ofSeconds(300L));
+        long ticks = gen.getRotationWindow().getSeconds();
+        Instant from = Instant.parse("2024-05-01T00:00:00Z");
+        SplittableRandom random = new SplittableRandom(5L);
+        Map<Long, Set<Long>> windows = new HashMap<>();
+        for (int batch = 0; batch < 2000; ++batch) {
+            Instant tv = gen.alignToWindow(from.plusSeconds(random.nextLong(36000L)),
+                    Duration.ofSeconds(199L));
+            long prefix = gen.activePrefix(gen.nextPrefix(random), tv);
+            Set<Long> batchPrefixes = new HashSet<>();
+            for (int ix = 0; ix < 200; ++ix) {
+                Instant instant = tv.plusSeconds(ix);
+                long msb = BaseKeyGen.reorder(gen.nextValue(prefix, instant, random)
+                        .getMostSignificantBits());
+                batchPrefixes.add(msb >>> 54);
+                windows.computeIfAbsent(gen.timestampCode(instant) / ticks,
+                        k -> new HashSet<>()).add(msb >>> 54);
+                // the per-key random prefixes stay within the same group
+                msb = BaseKeyGen.reorder(gen.nextValue(instant).getMostSignificantBits());
+                windows.get(gen.timestampCode(instant) / ticks).add(msb >>> 54);
+            }
+            Assert.assertEquals(1, batchPrefixes.size());
+        }
+        Assert.assertTrue(windows.size() >= 100);
+        for (Set<Long> prefixes : windows.values()) {
+            Assert.assertTrue(prefixes.size() <= 8);
+        }
+        // the batch longer than the window cannot be aligned
+        try {
+            gen.alignToWindow(from, Duration.ofSeconds(300L));
+            Assert.fail("Batch span longer than the window accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRotationKeepsAffinity() {
+        UuidKeyGen gen = new UuidKeyGen(10);
+        gen.setRotation(8, Duration.ofSeconds(300L));
+        UUID collection = UUID.randomUUID();
+        long affinity = gen.prefixOf(collection);
+        Instant from = Instant.parse("2024-05-01T00:00:00Z");
+        for (int i = 0; i < 20; ++i) {
+            Instant instant = from.plusSeconds(i * 301L);
+            Assert.assertEquals(affinity >>> 54, BaseKeyGen.reorder(
+                    gen.nextValue(collection, instant).getMostSignificantBits()) >>> 54);
+        }
+        UuidKeyGen tenants = new UuidKeyGen(10, 30, TimestampUnit.SECONDS, false,
+                KeyLayout.TENANT_HASH);
+        try {
+            tenants.setRotation(8, Duration.ofSeconds(300L));
+            Assert.fail("Rotation accepted for the tenant-hash layout");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class UuidOrderTest {
+
+    @Test
+    public void testComparator() {
+        // single-byte values, each next one setting the more significant
+        // logical byte, as in the ORDER action
+        List<UUID> values = new ArrayList<>();
+        for (int i = 0; i < 16; ++i) {
+            long bits = (i % 8 + 1L) << (8 * (i % 8));
+            values.add((i < 8) ? new UUID(0L, bits) : new UUID(UuidKeyGen.reorder(bits), 0L));
+        }
+        for (int i = 1; i < values.size(); ++i) {
+            Assert.assertTrue(UuidOrder.YDB.compare(values.get(i - 1), values.get(i)) < 0);
+            Assert.assertTrue(UuidOrder.YDB.compare(values.get(i), values.get(i - 1)) > 0);
+        }
+        UUID top = new UUID(UuidKeyGen.reorder(0x8000000000000000L), 0L);
+        UUID low = new UUID(UuidKeyGen.reorder(0x0100000000000000L), -1L);
+        // unsigned comparison, unlike UUID.compareTo
+        Assert.assertTrue(UuidOrder.YDB.compare(low, top) < 0);
+        Assert.assertEquals(0, UuidOrder.YDB.compare(top, new UUID(
+                top.getMostSignificantBits(), top.getLeastSignificantBits())));
+    }
+
+    @Test
+    public void testRadixSort() {
+        UuidKeyGen gen = new UuidKeyGen(8);
+        SplittableRandom r = new SplittableRandom(5L);
+        Instant now = Instant.parse("2024-05-01T10:00:00Z");
+        for (int n : new int[]{0, 1, 2, 100, 5000}) {
+            List<UUID> values = new ArrayList<>();
+            long prefix = gen.getPrefixValue(r.nextInt(256));
+            for (int i = 0; i < n; ++i) {
+                // mix of random keys and keys sharing the prefix
+                values.add((i % 2 == 0) ? new UUID(r.nextLong(), r.nextLong())
+                        : gen.nextValue(prefix, now.plusSeconds(i % 7), r));
+            }
+            long[] msb = new long[n];
+            long[] lsb = new long[n];
+            for (int i = 0; i < n; ++i) {
+                msb[i] = values.get(i).getMostSignificantBits();
+                lsb[i] = values.get(i).getLeastSignificantBits();
+            }
+            int[] order = UuidOrder.sortOrder(msb, lsb);
+            values.sort(UuidOrder.YDB);
+            UuidOrder.sort(msb, lsb);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(values.get(i), new UUID(msb[i], lsb[i]));
+            }
+            Assert.assertEquals(n, order.length);
+        }
+    }
+
+    @Test
+    public void testStable() {
+        long[] msb = {5L, 1L, 5L, 1L};
+        long[] lsb = {7L, 7L, 7L, 3L};
+        Assert.assertArrayEquals(new int[]{3, 1, 0, 2}, UuidOrder.sortOrder(msb, lsb));
+    }
+}
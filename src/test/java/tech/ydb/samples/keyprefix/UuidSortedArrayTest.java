@@ -0,0 +1,82 @@
+package tech.ydb.samples.keyprefix;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class UuidSortedArrayTest {
+
+    @Test
+    public void testOrderAndSearch() {
+        UuidKeyGen gen = new UuidKeyGen(6);
+        Random r = new Random(3L);
+        TreeSet<UUID> expected = new TreeSet<>(UuidOrder.YDB);
+        UuidSortedArray.Builder builder = new UuidSortedArray.Builder(100);
+        for (int i = 0; i < 5000; ++i) {
+            UUID v = (i % 3 == 0) ? new UUID(r.nextLong(), r.nextLong())
+                    : gen.nextValue(gen.getPrefixValue(r.nextInt(64)));
+            expected.add(v);
+            builder.add(v);
+            if (i % 10 == 0) {
+                // duplicates are removed
+                builder.add(v);
+            }
+        }
+        UuidSortedArray arr = builder.build();
+        Assert.assertEquals(expected.size(), arr.size());
+        Assert.assertEquals(16L * arr.size(), arr.memoryBytes());
+        List<UUID> actual = new ArrayList<>();
+        for (UUID v : arr) {
+            actual.add(v);
+        }
+        Assert.assertEquals(new ArrayList<>(expected), actual);
+        int pos = 0;
+        for (UUID v : expected) {
+            Assert.assertEquals(pos++, arr.indexOf(v));
+        }
+        UUID absent = new UUID(r.nextLong(), r.nextLong());
+        int idx = arr.indexOf(absent);
+        Assert.assertTrue(idx < 0);
+        Assert.assertEquals(expected.headSet(absent).size(), -idx - 1);
+    }
+
+    @Test
+    public void testRange() {
+        UuidKeyGen gen = new UuidKeyGen(4);
+        Instant now = Instant.parse("2024-05-01T10:00:00Z");
+        UuidSortedArray.Builder builder = new UuidSortedArray.Builder(16);
+        for (int pfx = 0; pfx < 16; ++pfx) {
+            for (int i = 0; i < 100; ++i) {
+                builder.add(gen.nextValue(gen.getPrefixValue(pfx),
+                        now.plusSeconds(i % 10)));
+            }
+        }
+        UuidSortedArray arr = builder.build();
+        // the keys of prefix 5 within the first 5 seconds
+        UUID from = gen.rangeBound(gen.getPrefixValue(5), now);
+        UUID till = gen.rangeBound(gen.getPrefixValue(5), now.plusSeconds(5));
+        int count = arr.forEachInRange(from, till, (msb, lsb) -> {
+            UUID v = new UUID(msb, lsb);
+            Assert.assertTrue(UuidOrder.YDB.compare(from, v) <= 0);
+            Assert.assertTrue(UuidOrder.YDB.compare(v, till) < 0);
+        });
+        Assert.assertEquals(50, count);
+        Iterator<UUID> it = arr.range(from, till);
+        int seen = 0;
+        while (it.hasNext()) {
+            it.next();
+            ++seen;
+        }
+        Assert.assertEquals(count, seen);
+    }
+}
@@ -0,0 +1,142 @@
+package tech.ydb.samples.keyprefix;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class WorkerGroupTest {
+
+    @Test
+    public void testLeases() throws Exception {
+        Path dir = Files.createTempDirectory("wg");
+        try (WorkerGroup g0 = new WorkerGroup(dir, "r", 2);
+                WorkerGroup g1 = new WorkerGroup(dir, "r", 2)) {
+            Assert.assertEquals(0, g0.getIndex());
+            Assert.assertEquals(1, g1.getIndex());
+            Assert.assertTrue(g0.isCoordinator());
+            Assert.assertTrue(g0.owns(4L) && g1.owns(5L));
+            Assert.assertEquals(4L, g0.shareOf(7L));
+            Assert.assertEquals(3L, g1.shareOf(7L));
+            try {
+                new WorkerGroup(dir, "r", 2).close();
+                Assert.fail("Third lease must not be granted");
+            } catch (IOException expected) {
+            }
+        }
+        // leases are released on close
+        try (WorkerGroup g = new WorkerGroup(dir, "r", 2)) {
+            Assert.assertEquals(0, g.getIndex());
+        }
+    }
+
+    @Test
+    public void testMergedStats() throws Exception {
+        Path dir = Files.createTempDirectory("wg");
+        List<LatencyStats> merged = runGroup(dir, "t", 3);
+        Assert.assertEquals(1, merged.size());
+        LatencyStats ls = merged.get(0);
+        Assert.assertEquals(6L, ls.getCount());
+        Assert.assertEquals(60L, ls.getRows());
+        Assert.assertEquals(3.0, ls.getMaxNanos() / 1000000.0, 1e-9);
+        Assert.assertEquals(3.0, ls.getPercentileMillis(100.0), 0.5);
+    }
+
+    @Test
+    public void testRestartAfterAbort() throws Exception {
+        Path dir = Files.createTempDirectory("wg");
+        // aborted run: started and published, the coordinator never collected
+        try (WorkerGroup g0 = new WorkerGroup(dir, "a", 2);
+                WorkerGroup g1 = new WorkerGroup(dir, "a", 2)) {
+            ExecutorService es = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> f = es.submit(() -> {
+                    g1.awaitStart(Duration.ofSeconds(30));
+                    g1.publish(Collections.singletonList(stats(100)));
+                    return null;
+                });
+                g0.awaitStart(Duration.ofSeconds(30));
+                g0.publish(Collections.singletonList(stats(100)));
+                f.get();
+            } finally {
+                es.shutdown();
+            }
+        }
+        // files of a killed run, left without the cleanup
+        for (String name : new String[]{"a-ready-0", "a-ready-1", "a-start",
+            "a-stats-0", "a-stats-1"}) {
+            Files.write(dir.resolve(name), "stale".getBytes(StandardCharsets.UTF_8));
+        }
+        // the single process must not pass the start barrier
+        try (WorkerGroup g = new WorkerGroup(dir, "a", 2)) {
+            try {
+                g.awaitStart(Duration.ofSeconds(1));
+                Assert.fail("Start barrier passed on stale files");
+            } catch (IOException expected) {
+            }
+        }
+        Assert.assertFalse(Files.exists(dir.resolve("a-ready-1")));
+        // the next full run only sees its own statistics
+        for (int run = 0; run < 2; ++run) {
+            List<LatencyStats> merged = runGroup(dir, "a", 2);
+            Assert.assertEquals(1, merged.size());
+            Assert.assertEquals(3L, merged.get(0).getCount());
+            Assert.assertEquals(30L, merged.get(0).getRows());
+        }
+    }
+
+    private static LatencyStats stats(int millis) {
+        LatencyStats ls = new LatencyStats("op");
+        ls.record(1000000L * millis, 10);
+        return ls;
+    }
+
+    private static List<LatencyStats> runGroup(Path dir, String run, int workers)
+            throws Exception {
+        ExecutorService es = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<List<LatencyStats>>> results = new ArrayList<>();
+            for (int i = 0; i < workers; ++i) {
+                results.add(es.submit(() -> {
+                    try (WorkerGroup g = new WorkerGroup(dir, run, workers)) {
+                        g.awaitStart(Duration.ofSeconds(30));
+                        LatencyStats ls = new LatencyStats("op");
+                        for (int k = 0; k <= g.getIndex(); ++k) {
+                            ls.record(1000000L * (g.getIndex() + 1), 10);
+                        }
+                        g.publish(Collections.singletonList(ls));
+                        if (g.isCoordinator()) {
+                            return WorkerGroup.merge(g.collect(Duration.ofSeconds(30)));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            List<LatencyStats> merged = null;
+            for (Future<List<LatencyStats>> f : results) {
+                List<LatencyStats> v = f.get();
+                if (v != null) {
+                    merged = v;
+                }
+            }
+            Assert.assertNotNull(merged);
+            return merged;
+        } finally {
+            es.shutdown();
+        }
+    }
+
+}
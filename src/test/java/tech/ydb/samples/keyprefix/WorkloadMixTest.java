@@ -0,0 +1,35 @@
+package tech.ydb.samples.keyprefix;
+
+import java.util.EnumMap;
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class WorkloadMixTest {
+
+    @Test
+    public void testParseAndPick() {
+        WorkloadMix mix = WorkloadMix.parse("index:4, BYID:10, bycoll:0, INSERT:6:50");
+        Assert.assertEquals(3, mix.getEntries().size());
+        Assert.assertFalse(mix.contains(WorkloadMix.Op.BYCOLL));
+        Assert.assertEquals(50L, mix.getEntries().get(2).getThinkMillis());
+        EnumMap<WorkloadMix.Op, Integer> counts = new EnumMap<>(WorkloadMix.Op.class);
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 200000; ++i) {
+            counts.merge(mix.next(random).getOp(), 1, Integer::sum);
+        }
+        Assert.assertEquals(0.2, counts.get(WorkloadMix.Op.INDEX) / 200000.0, 0.01);
+        Assert.assertEquals(0.5, counts.get(WorkloadMix.Op.BYID) / 200000.0, 0.01);
+        Assert.assertEquals(0.3, counts.get(WorkloadMix.Op.INSERT) / 200000.0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegal() {
+        WorkloadMix.parse("INDEX");
+    }
+
+}